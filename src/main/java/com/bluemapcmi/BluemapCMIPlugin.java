@@ -1,17 +1,27 @@
 package com.bluemapcmi;
 
+import com.bluemapcmi.debug.DebugLog;
 import com.bluemapcmi.integration.BluemapIntegration;
 import com.bluemapcmi.integration.CMIIntegration;
+import com.bluemapcmi.integration.MarkerResolver;
+import com.bluemapcmi.integration.WarpUsageTracker;
+import com.bluemapcmi.network.MarkerRecord;
+import com.bluemapcmi.network.NetworkMarkerSync;
 import de.bluecolored.bluemap.api.BlueMapAPI;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.Map;
 import java.util.Objects;
 
 public class BluemapCMIPlugin extends JavaPlugin {
 
     private BluemapIntegration bluemapIntegration;
     private CMIIntegration cmiIntegration;
+    private WarpUsageTracker warpUsageTracker;
+    private MarkerResolver markerResolver;
+    private NetworkMarkerSync networkSync;
+    private DebugLog debugLog;
     private UpdateTask updateTask;
 
     @Override
@@ -19,6 +29,10 @@ public class BluemapCMIPlugin extends JavaPlugin {
         // Save default config
         saveDefaultConfig();
 
+        // Debug events are written by a background thread
+        debugLog = new DebugLog(this);
+        debugLog.reload();
+
         // Register command handler
         CommandHandler commandHandler = new CommandHandler(this);
         getCommand("bluemapcmi").setExecutor(commandHandler);
@@ -43,15 +57,34 @@ public class BluemapCMIPlugin extends JavaPlugin {
             // Initialize CMI integration
             this.cmiIntegration = new CMIIntegration(this);
 
+            // Track warp usage so max-warps shows the most popular warps
+            this.warpUsageTracker = new WarpUsageTracker(this);
+            Bukkit.getPluginManager().registerEvents(warpUsageTracker, this);
+
+            // Resolves markers once per refresh for BlueMap and the network store
+            this.markerResolver = new MarkerResolver(this);
+
+            // Share markers with other servers through the network store
+            if (getConfig().getBoolean("network.enabled", false)) {
+                try {
+                    this.networkSync = new NetworkMarkerSync(this);
+                } catch (java.io.IOException e) {
+                    getLogger().warning("Failed to open network marker store: " + e.getMessage());
+                }
+            }
+
+            // Refresh once the server has finished loading so CMI warps are available
+            Bukkit.getScheduler().runTask(this, this::refreshMarkers);
+
             // Check if BlueMap is available
             if (Bukkit.getPluginManager().getPlugin("BlueMap") == null) {
+                // The update task still runs to publish network markers and track warp usage
                 getLogger().warning("BlueMap plugin not found! Markers will not be displayed.");
-                return;
+            } else {
+                // Initialize BlueMap integration asynchronously
+                initializeBlueMapIntegration();
             }
 
-            // Initialize BlueMap integration asynchronously
-            initializeBlueMapIntegration();
-
             // Start update task if enabled
             int updateInterval = getConfig().getInt("settings.update-interval", 300);
             if (updateInterval > 0) {
@@ -82,6 +115,11 @@ public class BluemapCMIPlugin extends JavaPlugin {
                 }
                 this.bluemapIntegration = new BluemapIntegration(this);
                 bluemapIntegration.initializeMarkers();
+                Bukkit.getScheduler().runTask(this, this::refreshMarkers);
+                if (networkSync != null && networkSync.isAggregating()) {
+                    networkSync.poll();
+                    bluemapIntegration.applyNetworkMarkers(networkSync.getRemoteServerIds());
+                }
                 if (getConfig().getBoolean("settings.debug", false)) {
                     getLogger().info("BlueMap integration initialized successfully!");
                 }
@@ -99,6 +137,30 @@ public class BluemapCMIPlugin extends JavaPlugin {
         });
     }
 
+    /**
+     * Rebuild local markers and publish them to the network store if enabled
+     */
+    public void refreshMarkers() {
+        if (markerResolver == null) {
+            return;
+        }
+
+        // Nothing shows markers, only keep the warp usage index current
+        if (bluemapIntegration == null && networkSync == null) {
+            warpUsageTracker.refresh();
+            return;
+        }
+
+        // Resolving also refreshes the warp usage index
+        Map<String, MarkerRecord> markers = markerResolver.resolve();
+        if (bluemapIntegration != null) {
+            bluemapIntegration.updateMarkers(markers);
+        }
+        if (networkSync != null) {
+            networkSync.publish(markers);
+        }
+    }
+
     private void registerCustomAliases(CommandHandler commandHandler) {
         java.util.List<String> aliases = getConfig().getStringList("aliases");
         if (aliases == null || aliases.isEmpty()) {
@@ -133,6 +195,16 @@ public class BluemapCMIPlugin extends JavaPlugin {
             bluemapIntegration.cleanup();
         }
 
+        // Persist warp popularity scores
+        if (warpUsageTracker != null) {
+            warpUsageTracker.save();
+        }
+
+        // Write out pending debug events
+        if (debugLog != null) {
+            debugLog.shutdown();
+        }
+
         getLogger().info("╔════════════════════════════════════════╗");
         getLogger().info("║    Bluemap CMI Integration Disabled    ║");
         getLogger().info("╚════════════════════════════════════════╝");
@@ -146,4 +218,20 @@ public class BluemapCMIPlugin extends JavaPlugin {
         return cmiIntegration;
     }
 
+    public WarpUsageTracker getWarpUsageTracker() {
+        return warpUsageTracker;
+    }
+
+    public MarkerResolver getMarkerResolver() {
+        return markerResolver;
+    }
+
+    public NetworkMarkerSync getNetworkSync() {
+        return networkSync;
+    }
+
+    public DebugLog getDebugLog() {
+        return debugLog;
+    }
+
 }
@@ -68,12 +68,11 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
     private void handleReload(CommandSender sender) {
         try {
             plugin.reloadConfig();
+            plugin.getDebugLog().reload();
             loadMessages();
             
             // Reload markers
-            if (plugin.getBluemapIntegration() != null) {
-                plugin.getBluemapIntegration().updateMarkers();
-            }
+            plugin.refreshMarkers();
             
             sender.sendMessage(colorize(messages.getString("reload-success", "&aConfiguration reloaded successfully!")));
             
@@ -116,9 +115,7 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         plugin.saveConfig();
 
         // Update markers immediately
-        if (plugin.getBluemapIntegration() != null) {
-            plugin.getBluemapIntegration().updateMarkers();
-        }
+        plugin.refreshMarkers();
 
         String statusKey = newState ? "toggle-enabled" : "toggle-disabled";
         String message = messages.getString(statusKey, newState ? "&a{marker} markers enabled!" : "&c{marker} markers disabled!")
@@ -1,7 +1,11 @@
 package com.bluemapcmi;
 
+import com.bluemapcmi.network.NetworkMarkerSync;
 import org.bukkit.Bukkit;
 
+import java.util.Collections;
+import java.util.Set;
+
 public class UpdateTask extends Thread {
 
     private final BluemapCMIPlugin plugin;
@@ -20,13 +24,18 @@ public class UpdateTask extends Thread {
         while (running) {
             try {
                 Thread.sleep(updateInterval);
+
+                // Read other servers' markers here so the main thread only merges them
+                NetworkMarkerSync networkSync = plugin.getNetworkSync();
+                Set<String> changedServers = networkSync != null ? networkSync.poll() : Collections.emptySet();
                 
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     try {
-                        plugin.getBluemapIntegration().updateMarkers();
-                        if (plugin.getConfig().getBoolean("settings.debug", false)) {
-                            plugin.getLogger().info("Markers updated successfully");
+                        plugin.refreshMarkers();
+                        if (plugin.getBluemapIntegration() != null) {
+                            plugin.getBluemapIntegration().applyNetworkMarkers(changedServers);
                         }
+                        plugin.getDebugLog().log("update", "Markers updated successfully");
                     } catch (Exception e) {
                         plugin.getLogger().warning("Error updating markers: " + e.getMessage());
                     }
@@ -0,0 +1,8 @@
+package com.bluemapcmi.debug;
+
+/**
+ * A debug event as recorded on the hot path. The message is only formatted
+ * by the writer thread, "{}" placeholders are replaced by the arguments.
+ */
+public record DebugEvent(long time, String category, String message, Object[] args) {
+}
@@ -0,0 +1,256 @@
+package com.bluemapcmi.debug;
+
+import com.bluemapcmi.BluemapCMIPlugin;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Debug event channel. Callers only put events into a ring buffer, a
+ * background thread formats them and writes them to a rotating log file.
+ * Each category is limited to a number of lines per second, suppressed
+ * events are reported as counts instead of one line each.
+ */
+public class DebugLog {
+
+    private static final long DRAIN_INTERVAL_MILLIS = 500;
+    private static final long SUMMARY_INTERVAL_MILLIS = 60_000;
+
+    private final BluemapCMIPlugin plugin;
+    private final File logDirectory;
+    private final EventRingBuffer buffer;
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean enabled;
+    private volatile int maxPerSecond;
+    private volatile long maxFileBytes;
+    private volatile int maxFiles;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Only used by the writer thread
+    private final Map<String, CategoryStats> stats = new TreeMap<>();
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    private Writer writer;
+    private long fileSize;
+    private long lastSummary;
+
+    private static class CategoryStats {
+        private long windowSecond;
+        private int windowCount;
+        private long suppressed;
+        private long total;
+    }
+
+    public DebugLog(BluemapCMIPlugin plugin) {
+        this.plugin = plugin;
+        this.logDirectory = new File(plugin.getDataFolder(), "logs");
+        // Producers hold no lock, so the buffer is sized once and not replaced on reload
+        this.buffer = new EventRingBuffer(plugin.getConfig().getInt("settings.debug-log.buffer-size", 4096));
+    }
+
+    /**
+     * Apply the debug settings from config and start the writer thread if needed
+     */
+    public synchronized void reload() {
+        maxPerSecond = Math.max(1, plugin.getConfig().getInt("settings.debug-log.max-per-second", 20));
+        maxFileBytes = Math.max(16, plugin.getConfig().getLong("settings.debug-log.max-file-kb", 1024)) * 1024L;
+        maxFiles = Math.max(1, plugin.getConfig().getInt("settings.debug-log.max-files", 3));
+        enabled = plugin.getConfig().getBoolean("settings.debug", false);
+
+        if (enabled && writerThread == null) {
+            running = true;
+            writerThread = new Thread(this::run, "BluemapCMI-DebugLog");
+            writerThread.setDaemon(true);
+            writerThread.start();
+            plugin.getLogger().info("Debug events are written to " + new File(logDirectory, "debug.log").getPath());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record a debug event. Cheap enough to call from the main thread,
+     * the event is dropped if the writer thread cannot keep up.
+     */
+    public void log(String category, String message, Object... args) {
+        if (!enabled) {
+            return;
+        }
+        if (!buffer.offer(new DebugEvent(System.currentTimeMillis(), category, message, args))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Write all pending events and stop the writer thread
+     */
+    public synchronized void shutdown() {
+        if (writerThread == null) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    private void run() {
+        lastSummary = System.currentTimeMillis();
+        try {
+            while (running) {
+                drain();
+                if (System.currentTimeMillis() - lastSummary >= SUMMARY_INTERVAL_MILLIS) {
+                    writeSummary();
+                }
+                flush();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(DRAIN_INTERVAL_MILLIS));
+            }
+            drain();
+            writeSummary();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Debug log writer stopped: " + e.getMessage());
+        } finally {
+            closeWriter();
+        }
+    }
+
+    private void drain() throws IOException {
+        DebugEvent event;
+        while ((event = buffer.poll()) != null) {
+            CategoryStats categoryStats = stats.computeIfAbsent(event.category(), k -> new CategoryStats());
+            categoryStats.total++;
+
+            long second = event.time() / 1000;
+            if (second != categoryStats.windowSecond) {
+                reportSuppressed(event.category(), categoryStats, event.time());
+                categoryStats.windowSecond = second;
+                categoryStats.windowCount = 0;
+            }
+
+            if (categoryStats.windowCount < maxPerSecond) {
+                categoryStats.windowCount++;
+                write(event.time(), event.category(), format(event.message(), event.args()));
+            } else {
+                categoryStats.suppressed++;
+            }
+        }
+    }
+
+    private void reportSuppressed(String category, CategoryStats categoryStats, long time) throws IOException {
+        if (categoryStats.suppressed > 0) {
+            write(time, category, categoryStats.suppressed + " similar events suppressed");
+            categoryStats.suppressed = 0;
+        }
+    }
+
+    private void writeSummary() throws IOException {
+        long now = System.currentTimeMillis();
+        StringBuilder summary = new StringBuilder("Events in the last ")
+            .append((now - lastSummary) / 1000).append("s:");
+
+        boolean any = false;
+        for (Map.Entry<String, CategoryStats> entry : stats.entrySet()) {
+            CategoryStats categoryStats = entry.getValue();
+            reportSuppressed(entry.getKey(), categoryStats, now);
+            if (categoryStats.total > 0) {
+                summary.append(' ').append(entry.getKey()).append('=').append(categoryStats.total);
+                categoryStats.total = 0;
+                any = true;
+            }
+        }
+
+        long droppedEvents = dropped.sumThenReset();
+        if (droppedEvents > 0) {
+            summary.append(" dropped=").append(droppedEvents);
+            any = true;
+        }
+
+        if (any) {
+            write(now, "summary", summary.toString());
+        }
+        lastSummary = now;
+    }
+
+    private void write(long time, String category, String message) throws IOException {
+        if (writer == null || fileSize >= maxFileBytes) {
+            rotate();
+        }
+
+        String line = timeFormat.format(new Date(time)) + " [" + category + "] " + message + System.lineSeparator();
+        writer.write(line);
+        fileSize += line.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeWriter();
+
+        if (!logDirectory.exists() && !logDirectory.mkdirs()) {
+            throw new IOException("Could not create " + logDirectory.getPath());
+        }
+
+        File current = new File(logDirectory, "debug.log");
+        if (current.exists() && current.length() >= maxFileBytes) {
+            // debug.log -> debug.log.1 -> ... -> debug.log.<max-files>, the oldest is deleted
+            new File(logDirectory, "debug.log." + maxFiles).delete();
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                File older = new File(logDirectory, "debug.log." + i);
+                if (older.exists()) {
+                    older.renameTo(new File(logDirectory, "debug.log." + (i + 1)));
+                }
+            }
+            current.renameTo(new File(logDirectory, "debug.log.1"));
+        }
+
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(current, true), StandardCharsets.UTF_8));
+        fileSize = current.length();
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to close debug log: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    private static String format(String message, Object[] args) {
+        if (args == null || args.length == 0) {
+            return message;
+        }
+
+        StringBuilder result = new StringBuilder(message.length() + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while (argIndex < args.length && (placeholder = message.indexOf("{}", start)) >= 0) {
+            result.append(message, start, placeholder).append(args[argIndex++]);
+            start = placeholder + 2;
+        }
+        result.append(message, start, message.length());
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.bluemapcmi.debug;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer.
+ * Producers claim a slot with a CAS on the tail, the consumer clears a slot
+ * before moving the head past it, so a claimed slot is always free.
+ */
+class EventRingBuffer {
+
+    private final AtomicReferenceArray<DebugEvent> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    EventRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Add an event
+     *
+     * @return false if the buffer is full and the event was not added
+     */
+    boolean offer(DebugEvent event) {
+        while (true) {
+            long current = tail.get();
+            if (current - head >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(current, current + 1)) {
+                slots.lazySet((int) (current & mask), event);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Take the oldest event, only called from the consumer thread
+     *
+     * @return the event, or null if none is ready
+     */
+    DebugEvent poll() {
+        long current = head;
+        int index = (int) (current & mask);
+        DebugEvent event = slots.get(index);
+        if (event == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head = current + 1;
+        return event;
+    }
+
+}
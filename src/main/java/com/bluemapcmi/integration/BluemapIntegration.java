@@ -1,24 +1,68 @@
 package com.bluemapcmi.integration;
 
 import com.bluemapcmi.BluemapCMIPlugin;
+import com.bluemapcmi.network.MarkerRecord;
+import com.bluemapcmi.network.NetworkMarkerSync;
+import com.bluemapcmi.shapes.CuboidRegion;
+import com.bluemapcmi.shapes.RegionOutline;
+import com.bluemapcmi.shapes.RegionOutliner;
+import com.flowpowered.math.vector.Vector2d;
 import de.bluecolored.bluemap.api.BlueMapAPI;
 import de.bluecolored.bluemap.api.BlueMapMap;
+import de.bluecolored.bluemap.api.BlueMapWorld;
+import de.bluecolored.bluemap.api.markers.ExtrudeMarker;
+import de.bluecolored.bluemap.api.markers.Marker;
 import de.bluecolored.bluemap.api.markers.MarkerSet;
 import de.bluecolored.bluemap.api.markers.POIMarker;
+import de.bluecolored.bluemap.api.markers.ShapeMarker;
+import de.bluecolored.bluemap.api.math.Color;
+import de.bluecolored.bluemap.api.math.Shape;
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public class BluemapIntegration {
 
+    private static final String DEFAULT_WARP_CATEGORY = "";
+
     private final BluemapCMIPlugin plugin;
     private BlueMapAPI bluemapAPI;
-    private final Map<String, POIMarker> activeMarkers = new HashMap<>();
     private MarkerSet warpsMarkerSet;
     private MarkerSet spawnMarkerSet;
     private MarkerSet firstSpawnMarkerSet;
+    private final Map<String, MarkerSet> warpCategoryMarkerSets = new HashMap<>();
+    // Warps as last published per category, compared to skip unchanged categories
+    private final Map<String, Map<String, MarkerRecord>> publishedWarps = new HashMap<>();
+    // The categories the category marker sets were created for
+    private WarpCategories warpCategories;
+    private final Map<String, RegionOutliner> areaOutliners = new HashMap<>();
+    private final Map<String, List<RegionOutline>> publishedAreaOutlines = new HashMap<>();
+    private final Map<String, Map<String, MarkerSet>> areaMarkerSets = new HashMap<>();
+    private FileConfiguration areaMarkersConfig;
+    private final Map<String, Map<String, NetworkGroup>> networkGroups = new HashMap<>();
+    private final Set<String> unresolvedNetworkServers = new HashSet<>();
+    // The config network.maps was read from for the current network groups
+    private FileConfiguration networkMapsConfig;
+
+    /**
+     * Markers of one other server in one world and category, shown on the maps of that world
+     */
+    private static class NetworkGroup {
+        private final String markerSetId;
+        private final MarkerSet markerSet;
+        private final Collection<BlueMapMap> maps;
+        private final Map<String, MarkerRecord> applied = new HashMap<>();
+
+        private NetworkGroup(String markerSetId, MarkerSet markerSet, Collection<BlueMapMap> maps) {
+            this.markerSetId = markerSetId;
+            this.markerSet = markerSet;
+            this.maps = maps;
+        }
+    }
 
     public BluemapIntegration(BluemapCMIPlugin plugin) throws Exception {
         this.plugin = plugin;
@@ -52,6 +96,8 @@ public class BluemapIntegration {
                 map.getMarkerSets().remove("cmi-warps");      // Clear current to recreate
                 map.getMarkerSets().remove("cmi-spawn");
                 map.getMarkerSets().remove("cmi-firstspawn");
+                map.getMarkerSets().remove("cmi-portals");
+                map.getMarkerSets().remove("cmi-jails");
             }
 
             // Create separate marker sets for warps, spawn, and first spawn
@@ -72,11 +118,16 @@ public class BluemapIntegration {
                 .toggleable(true)
                 .defaultHidden(false)
                 .build();
+
+            // Recreate category marker sets alongside the new warps set
+            warpCategories = null;
+            publishedWarps.clear();
+
+            // Area marker sets are recreated per world on the next area update
+            areaMarkerSets.clear();
+            publishedAreaOutlines.clear();
             
-            // Add markers to their respective sets
-            addSpawnMarkers();
-            addWarpMarkers();
-            addFirstSpawnMarker();
+            // Markers are added by the next updateMarkers() call
             
             // Add marker sets to all maps
             for (BlueMapMap map : maps) {
@@ -93,163 +144,435 @@ public class BluemapIntegration {
         }
     }
 
-    private void addSpawnMarkers() {
-        if (!plugin.getConfig().getBoolean("spawn-marker.enabled", true)) {
-            return;
-        }
+    /**
+     * Show the resolved local markers, only republishing warp categories that changed
+     */
+    public void updateMarkers(Map<String, MarkerRecord> markers) {
+        try {
+            // Spawn markers are few, so they are simply replaced
+            if (spawnMarkerSet != null) {
+                spawnMarkerSet.getMarkers().clear();
+            }
+            if (firstSpawnMarkerSet != null) {
+                firstSpawnMarkerSet.getMarkers().clear();
+            }
 
-        CMIIntegration cmiIntegration = plugin.getCMIIntegration();
-        Location spawnLocation = cmiIntegration.getSpawn();
+            WarpCategories categories = plugin.getMarkerResolver().getWarpCategories();
+            if (categories != warpCategories) {
+                warpCategories = categories;
+                rebuildWarpCategoryMarkerSets();
+            }
 
-        if (spawnLocation != null && spawnLocation.getWorld() != null) {
-            // Check if world is blacklisted
-            if (isWorldBlacklisted(spawnLocation.getWorld().getName())) {
-                if (plugin.getConfig().getBoolean("settings.debug", false)) {
-                    plugin.getLogger().info("Skipping spawn marker - world " + spawnLocation.getWorld().getName() + " is blacklisted");
+            // Warps per category, "" being the default cmi-warps set
+            Map<String, Map<String, MarkerRecord>> warpsByCategory = new HashMap<>();
+            warpsByCategory.put(DEFAULT_WARP_CATEGORY, new HashMap<>());
+            for (WarpCategories.Category category : categories.getCategories()) {
+                warpsByCategory.put(category.getKey(), new HashMap<>());
+            }
+
+            for (MarkerRecord record : markers.values()) {
+                switch (record.type()) {
+                    case "spawn":
+                        if (spawnMarkerSet != null) {
+                            spawnMarkerSet.getMarkers().put(record.id(), toPOIMarker(record));
+                        }
+                        break;
+                    case "firstspawn":
+                        if (firstSpawnMarkerSet != null) {
+                            firstSpawnMarkerSet.getMarkers().put(record.id(), toPOIMarker(record));
+                        }
+                        break;
+                    case "warp":
+                        String categoryKey = warpsByCategory.containsKey(record.category()) ? record.category() : DEFAULT_WARP_CATEGORY;
+                        warpsByCategory.get(categoryKey).put(record.id(), record);
+                        break;
                 }
-                return;
             }
-            
-            addMarker(
-                "spawn",
-                spawnLocation,
-                plugin.getConfig().getString("spawn-marker.label", "Spawn"),
-                plugin.getConfig().getString("spawn-marker.description", "Server spawn location"),
-                "spawn"
-            );
-            if (plugin.getConfig().getBoolean("settings.debug", false)) {
-                plugin.getLogger().info("Spawn marker added at " + formatLocation(spawnLocation));
+
+            for (Map.Entry<String, Map<String, MarkerRecord>> category : warpsByCategory.entrySet()) {
+                publishWarpCategory(category.getKey(), category.getValue());
             }
+
+            addAreaMarkers();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error updating markers: " + e.getMessage());
         }
     }
 
-    private void addFirstSpawnMarker() {
-        if (!plugin.getConfig().getBoolean("first-spawn-marker.enabled", true)) {
+    private void publishWarpCategory(String categoryKey, Map<String, MarkerRecord> records) {
+        MarkerSet markerSet = DEFAULT_WARP_CATEGORY.equals(categoryKey) ? warpsMarkerSet : warpCategoryMarkerSets.get(categoryKey);
+        if (markerSet == null) {
             return;
         }
 
-        CMIIntegration cmiIntegration = plugin.getCMIIntegration();
-        Location firstSpawnLocation = cmiIntegration.getFirstSpawn();
+        Map<String, MarkerRecord> published = publishedWarps.get(categoryKey);
+        if (records.equals(published)) {
+            return;
+        }
 
-        if (firstSpawnLocation != null && firstSpawnLocation.getWorld() != null) {
-            // Check if world is blacklisted
-            if (isWorldBlacklisted(firstSpawnLocation.getWorld().getName())) {
-                if (plugin.getConfig().getBoolean("settings.debug", false)) {
-                    plugin.getLogger().info("Skipping first spawn marker - world " + firstSpawnLocation.getWorld().getName() + " is blacklisted");
-                }
-                return;
+        // Only rebuild the markers that actually changed
+        Map<String, MarkerRecord> applied = new HashMap<>();
+        markerSet.getMarkers().keySet().retainAll(records.keySet());
+        for (MarkerRecord record : records.values()) {
+            if (published != null && record.equals(published.get(record.id())) && markerSet.getMarkers().containsKey(record.id())) {
+                applied.put(record.id(), record);
+                continue;
             }
-            
-            addMarker(
-                "first-spawn",
-                firstSpawnLocation,
-                plugin.getConfig().getString("first-spawn-marker.label", "First Spawn"),
-                plugin.getConfig().getString("first-spawn-marker.description", "First spawn location for new players"),
-                "firstspawn"
-            );
-            if (plugin.getConfig().getBoolean("settings.debug", false)) {
-                plugin.getLogger().info("First Spawn marker added at " + formatLocation(firstSpawnLocation));
+            try {
+                markerSet.getMarkers().put(record.id(), toPOIMarker(record));
+                applied.put(record.id(), record);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to add marker " + record.id() + ": " + e.getMessage());
             }
         }
+        publishedWarps.put(categoryKey, applied);
+
+        plugin.getDebugLog().log("warps", "Republished warp category '{}' with {} markers", DEFAULT_WARP_CATEGORY.equals(categoryKey) ? "default" : categoryKey, applied.size());
     }
 
-    private void addWarpMarkers() {
-        if (!plugin.getConfig().getBoolean("warps-marker.enabled", true)) {
-            return;
+    private void rebuildWarpCategoryMarkerSets() {
+        Collection<BlueMapMap> maps = bluemapAPI.getMaps();
+        for (String categoryKey : warpCategoryMarkerSets.keySet()) {
+            for (BlueMapMap map : maps) {
+                map.getMarkerSets().remove("cmi-warps-" + categoryKey);
+            }
+        }
+        warpCategoryMarkerSets.clear();
+        publishedWarps.clear();
+
+        for (WarpCategories.Category category : warpCategories.getCategories()) {
+            MarkerSet markerSet = MarkerSet.builder()
+                .label(category.getLabel())
+                .toggleable(true)
+                .defaultHidden(category.isDefaultHidden())
+                .build();
+            warpCategoryMarkerSets.put(category.getKey(), markerSet);
+            for (BlueMapMap map : maps) {
+                map.getMarkerSets().put("cmi-warps-" + category.getKey(), markerSet);
+            }
+        }
+    }
+
+    private void addAreaMarkers() {
+        // Colors and labels are part of the markers, so rebuild them after a reload
+        if (plugin.getConfig() != areaMarkersConfig) {
+            areaMarkersConfig = plugin.getConfig();
+            publishedAreaOutlines.clear();
         }
 
         CMIIntegration cmiIntegration = plugin.getCMIIntegration();
-        Map<String, Location> warps = cmiIntegration.getWarps();
-        int maxWarps = plugin.getConfig().getInt("warps-marker.max-warps", 0);
-        int count = 0;
-        int skipped = 0;
-
-        for (Map.Entry<String, Location> warp : warps.entrySet()) {
-            if (maxWarps > 0 && count >= maxWarps) {
-                break;
+        updateAreaLayer("portals", "Portal", cmiIntegration::getPortalRegions);
+        updateAreaLayer("jails", "Jail", cmiIntegration::getJailRegions);
+    }
+
+    /**
+     * Publish the outlines of one area layer. Geometry is cached by the
+     * outliner, so markers are only rebuilt when a region changed.
+     */
+    private void updateAreaLayer(String layer, String defaultLabel, Supplier<List<CuboidRegion>> regionSource) {
+        String path = "area-markers." + layer;
+
+        try {
+            List<CuboidRegion> regions = new ArrayList<>();
+            if (plugin.getConfig().getBoolean(path + ".enabled", true)) {
+                for (CuboidRegion region : regionSource.get()) {
+                    if (!isWorldBlacklisted(region.world())) {
+                        regions.add(region);
+                    }
+                }
+            }
+
+            List<RegionOutline> outlines = areaOutliners.computeIfAbsent(layer, k -> new RegionOutliner()).outline(regions);
+            if (outlines == publishedAreaOutlines.get(layer)) {
+                return;
             }
 
-            Location warpLocation = warp.getValue();
-            if (warpLocation != null && warpLocation.getWorld() != null) {
-                // Check if world is blacklisted
-                if (isWorldBlacklisted(warpLocation.getWorld().getName())) {
-                    skipped++;
-                    if (plugin.getConfig().getBoolean("settings.debug", false)) {
-                        plugin.getLogger().info("Skipping warp '" + warp.getKey() + "' - world " + warpLocation.getWorld().getName() + " is blacklisted");
+            String label = plugin.getConfig().getString(path + ".label", defaultLabel);
+            Color lineColor = new Color(plugin.getConfig().getString(path + ".line-color", "#a020f0ff"));
+            Color fillColor = new Color(plugin.getConfig().getString(path + ".fill-color", "#a020f04d"));
+            boolean extrude = plugin.getConfig().getBoolean(path + ".extrude", true);
+
+            Map<String, Map<String, Marker>> markersByWorld = new HashMap<>();
+            for (RegionOutline outline : outlines) {
+                String markerId = areaMarkerId(layer, outline);
+                String markerLabel = outline.regionNames().isEmpty() ? label : label + ": " + String.join(", ", outline.regionNames());
+                markersByWorld.computeIfAbsent(outline.world(), w -> new HashMap<>())
+                    .put(markerId, buildAreaMarker(outline, markerLabel, lineColor, fillColor, extrude));
+            }
+
+            Map<String, MarkerSet> worldSets = areaMarkerSets.computeIfAbsent(layer, k -> new HashMap<>());
+            Set<String> worlds = new HashSet<>(worldSets.keySet());
+            worlds.addAll(markersByWorld.keySet());
+            boolean complete = true;
+            for (String worldName : worlds) {
+                Map<String, Marker> markers = markersByWorld.getOrDefault(worldName, Collections.emptyMap());
+                MarkerSet markerSet = worldSets.get(worldName);
+                if (markerSet == null) {
+                    markerSet = createAreaMarkerSet(layer, worldName);
+                    if (markerSet == null) {
+                        // BlueMap has not loaded this world yet, try again on the next update
+                        complete = false;
+                        plugin.getDebugLog().log("areas", "No BlueMap maps for world {}, {} markers deferred", worldName, layer);
+                        continue;
                     }
-                    continue;
+                    worldSets.put(worldName, markerSet);
                 }
-                
-                addMarker(
-                    "warp-" + warp.getKey(),
-                    warpLocation,
-                    "Warp: " + warp.getKey(),
-                    "Warp point: " + warp.getKey(),
-                    "warp"
-                );
-                count++;
+                markerSet.getMarkers().keySet().retainAll(markers.keySet());
+                markerSet.getMarkers().putAll(markers);
+            }
+
+            if (complete) {
+                publishedAreaOutlines.put(layer, outlines);
+            } else {
+                publishedAreaOutlines.remove(layer);
             }
+
+            plugin.getDebugLog().log("areas", "Published {} {} outlines from {} areas", outlines.size(), layer, regions.size());
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error updating " + layer + " area markers: " + e.getMessage());
         }
+    }
 
-        if (plugin.getConfig().getBoolean("settings.debug", false)) {
-            plugin.getLogger().info("Retrieved " + count + " warp markers" + (skipped > 0 ? " (" + skipped + " skipped from blacklisted worlds)" : ""));
+    /**
+     * Get a marker id that stays the same while the outline's regions do
+     */
+    private static String areaMarkerId(String layer, RegionOutline outline) {
+        if (!outline.regionNames().isEmpty()) {
+            return layer + "-" + String.join("+", outline.regionNames());
         }
+        // Unnamed regions fall back to the outline's position
+        RegionOutline.Point corner = outline.outer().get(0);
+        return layer + "-" + corner.x() + "_" + outline.minY() + "_" + corner.z();
     }
 
-    private void addMarker(String markerId, Location location, String label, String description, String markerType) {
-        try {
-            POIMarker marker = POIMarker.builder()
+    private Marker buildAreaMarker(RegionOutline outline, String label, Color lineColor, Color fillColor, boolean extrude) {
+        Shape shape = toShape(outline.outer());
+        Shape[] holes = new Shape[outline.holes().size()];
+        for (int i = 0; i < holes.length; i++) {
+            holes[i] = toShape(outline.holes().get(i));
+        }
+
+        if (extrude) {
+            return ExtrudeMarker.builder()
                 .label(label)
-                .position(location.getX(), location.getY(), location.getZ())
+                .shape(shape, outline.minY(), outline.maxY())
+                .holes(holes)
+                .lineColor(lineColor)
+                .fillColor(fillColor)
+                .centerPosition()
                 .build();
+        }
 
-            MarkerSet targetSet = null;
-            switch (markerType) {
-                case "warp":
-                    targetSet = warpsMarkerSet;
-                    break;
-                case "spawn":
-                    targetSet = spawnMarkerSet;
-                    break;
-                case "firstspawn":
-                    targetSet = firstSpawnMarkerSet;
-                    break;
-            }
-            
-            if (targetSet != null) {
-                targetSet.getMarkers().put(markerId, marker);
-                activeMarkers.put(markerId, marker);
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to add marker " + markerId + ": " + e.getMessage());
+        return ShapeMarker.builder()
+            .label(label)
+            .shape(shape, outline.maxY())
+            .holes(holes)
+            .lineColor(lineColor)
+            .fillColor(fillColor)
+            .centerPosition()
+            .build();
+    }
+
+    private Shape toShape(List<RegionOutline.Point> points) {
+        Vector2d[] vertices = new Vector2d[points.size()];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = new Vector2d(points.get(i).x(), points.get(i).z());
         }
+        return new Shape(vertices);
     }
 
-    public void updateMarkers() {
-        try {
-            // Clear old markers
-            if (warpsMarkerSet != null) {
-                warpsMarkerSet.getMarkers().clear();
-            }
-            if (spawnMarkerSet != null) {
-                spawnMarkerSet.getMarkers().clear();
+    /**
+     * Create the marker set of an area layer and add it to the maps of its world
+     */
+    private MarkerSet createAreaMarkerSet(String layer, String worldName) {
+        Collection<BlueMapMap> maps = getWorldMaps(worldName);
+        if (maps.isEmpty()) {
+            return null;
+        }
+
+        MarkerSet markerSet = MarkerSet.builder()
+            .label(plugin.getConfig().getString("area-markers." + layer + ".set-label", "CMI-" + Character.toUpperCase(layer.charAt(0)) + layer.substring(1)))
+            .toggleable(true)
+            .defaultHidden(plugin.getConfig().getBoolean("area-markers." + layer + ".default-hidden", false))
+            .build();
+
+        for (BlueMapMap map : maps) {
+            map.getMarkerSets().put("cmi-" + layer, markerSet);
+        }
+        return markerSet;
+    }
+
+    /**
+     * Get the BlueMap maps rendering a local world, empty if BlueMap does not know the world
+     */
+    private Collection<BlueMapMap> getWorldMaps(String worldName) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            return Collections.emptyList();
+        }
+        return bluemapAPI.getWorld(world).map(BlueMapWorld::getMaps).orElse(Collections.emptyList());
+    }
+
+    /**
+     * Get the BlueMap maps configured for another server's world in network.maps.
+     * World names repeat across servers, so remote worlds are never matched by name.
+     */
+    private Collection<BlueMapMap> getNetworkMaps(String serverId, String worldName) {
+        ConfigurationSection mapping = plugin.getConfig().getConfigurationSection("network.maps");
+        if (mapping == null) {
+            return Collections.emptyList();
+        }
+
+        String key = serverId + ":" + worldName;
+        List<String> mapIds = mapping.isList(key) ? mapping.getStringList(key) : new ArrayList<>();
+        if (mapIds.isEmpty() && mapping.isString(key)) {
+            mapIds.add(mapping.getString(key));
+        }
+
+        List<BlueMapMap> maps = new ArrayList<>();
+        for (String mapId : mapIds) {
+            Optional<BlueMapMap> map = bluemapAPI.getMap(mapId);
+            if (map.isPresent()) {
+                maps.add(map.get());
+            } else {
+                plugin.getDebugLog().log("network", "Unknown BlueMap map '{}' in network.maps for '{}'", mapId, key);
             }
-            if (firstSpawnMarkerSet != null) {
-                firstSpawnMarkerSet.getMarkers().clear();
+        }
+        return maps;
+    }
+
+    private static POIMarker toPOIMarker(MarkerRecord record) {
+        POIMarker.Builder builder = POIMarker.builder()
+            .label(record.label())
+            .position(record.x(), record.y(), record.z());
+        if (record.detail() != null) {
+            builder.detail(record.detail());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Merge markers read from other servers into their own marker sets,
+     * grouped by world so each group only shows on the maps of its world
+     */
+    public synchronized void applyNetworkMarkers(Set<String> changedServers) {
+        NetworkMarkerSync networkSync = plugin.getNetworkSync();
+        if (networkSync == null) {
+            return;
+        }
+
+        // Retry servers whose worlds had no maps yet
+        Set<String> serverIds = new HashSet<>(changedServers);
+        serverIds.addAll(unresolvedNetworkServers);
+        unresolvedNetworkServers.clear();
+
+        // The world to map mapping may have changed, place every group again
+        if (plugin.getConfig() != networkMapsConfig) {
+            networkMapsConfig = plugin.getConfig();
+            for (Map<String, NetworkGroup> groups : networkGroups.values()) {
+                for (NetworkGroup group : groups.values()) {
+                    for (BlueMapMap map : group.maps) {
+                        map.getMarkerSets().remove(group.markerSetId);
+                    }
+                }
             }
-            activeMarkers.clear();
+            networkGroups.clear();
+            serverIds.addAll(networkSync.getRemoteServerIds());
+        }
+
+        try {
+            for (String serverId : serverIds) {
+                Map<String, Map<String, MarkerRecord>> recordsByGroup = new HashMap<>();
+                for (MarkerRecord record : networkSync.getRemoteMarkers(serverId).values()) {
+                    recordsByGroup.computeIfAbsent(record.world() + "|" + record.category(), k -> new HashMap<>())
+                        .put(record.id(), record);
+                }
+
+                Map<String, NetworkGroup> groups = networkGroups.computeIfAbsent(serverId, id -> new HashMap<>());
+                Iterator<Map.Entry<String, NetworkGroup>> iterator = groups.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, NetworkGroup> entry = iterator.next();
+                    if (!recordsByGroup.containsKey(entry.getKey())) {
+                        for (BlueMapMap map : entry.getValue().maps) {
+                            map.getMarkerSets().remove(entry.getValue().markerSetId);
+                        }
+                        iterator.remove();
+                    }
+                }
+
+                int merged = 0;
+                for (Map.Entry<String, Map<String, MarkerRecord>> entry : recordsByGroup.entrySet()) {
+                    NetworkGroup group = groups.get(entry.getKey());
+                    if (group == null) {
+                        MarkerRecord first = entry.getValue().values().iterator().next();
+                        group = createNetworkGroup(serverId, first.world(), first.category());
+                        if (group == null) {
+                            unresolvedNetworkServers.add(serverId);
+                            continue;
+                        }
+                        groups.put(entry.getKey(), group);
+                    }
 
-            // Re-add all markers
-            addSpawnMarkers();
-            addFirstSpawnMarker();
-            addWarpMarkers();
+                    // Only touch markers that actually changed
+                    Map<String, MarkerRecord> records = entry.getValue();
+                    group.markerSet.getMarkers().keySet().retainAll(records.keySet());
+                    group.applied.keySet().retainAll(records.keySet());
+                    for (MarkerRecord record : records.values()) {
+                        if (!record.equals(group.applied.get(record.id()))) {
+                            group.markerSet.getMarkers().put(record.id(), toPOIMarker(record));
+                            group.applied.put(record.id(), record);
+                        }
+                    }
+                    merged += records.size();
+                }
+
+                if (groups.isEmpty()) {
+                    networkGroups.remove(serverId);
+                }
+
+                plugin.getDebugLog().log("network", "Merged {} network markers from server '{}'", merged, serverId);
+            }
         } catch (Exception e) {
-            plugin.getLogger().warning("Error updating markers: " + e.getMessage());
+            plugin.getLogger().warning("Error applying network markers: " + e.getMessage());
         }
     }
 
+    private NetworkGroup createNetworkGroup(String serverId, String worldName, String category) {
+        Collection<BlueMapMap> maps = getNetworkMaps(serverId, worldName);
+        if (maps.isEmpty()) {
+            plugin.getDebugLog().log("network", "No maps configured in network.maps for '{}:{}'", serverId, worldName);
+            return null;
+        }
+
+        String markerSetId = "cmi-net-" + serverId + (category.isEmpty() ? "" : "-" + category);
+        MarkerSet markerSet = MarkerSet.builder()
+            .label("CMI-" + serverId + (category.isEmpty() ? "" : " " + category))
+            .toggleable(true)
+            .defaultHidden(false)
+            .build();
+        for (BlueMapMap map : maps) {
+            map.getMarkerSets().put(markerSetId, markerSet);
+        }
+        return new NetworkGroup(markerSetId, markerSet, maps);
+    }
+
     public void cleanup() {
         try {
+            for (Map<String, NetworkGroup> groups : networkGroups.values()) {
+                for (NetworkGroup group : groups.values()) {
+                    group.markerSet.getMarkers().clear();
+                }
+            }
+            for (MarkerSet markerSet : warpCategoryMarkerSets.values()) {
+                markerSet.getMarkers().clear();
+            }
+            publishedWarps.clear();
+            for (Map<String, MarkerSet> worldSets : areaMarkerSets.values()) {
+                for (MarkerSet markerSet : worldSets.values()) {
+                    markerSet.getMarkers().clear();
+                }
+            }
+            publishedAreaOutlines.clear();
             if (warpsMarkerSet != null) {
                 warpsMarkerSet.getMarkers().clear();
             }
@@ -259,23 +582,11 @@ public class BluemapIntegration {
             if (firstSpawnMarkerSet != null) {
                 firstSpawnMarkerSet.getMarkers().clear();
             }
-            activeMarkers.clear();
         } catch (Exception e) {
             plugin.getLogger().warning("Error cleaning up markers: " + e.getMessage());
         }
     }
 
-    private String formatLocation(Location location) {
-        if (location == null) return "null";
-        if (location.getWorld() == null) return "unknown-world";
-        return String.format("%s [%.0f, %.0f, %.0f]", 
-            location.getWorld().getName(),
-            location.getX(),
-            location.getY(),
-            location.getZ()
-        );
-    }
-
     /**
      * Check if a world is blacklisted in the config
      */
@@ -2,16 +2,33 @@ package com.bluemapcmi.integration;
 
 import com.bluemapcmi.BluemapCMIPlugin;
 import com.Zrips.CMI.CMI;
+import com.bluemapcmi.shapes.CuboidRegion;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CMIIntegration {
 
     private final BluemapCMIPlugin plugin;
     private final CMI cmiPlugin;
+    // Warp name -> group and details, replaced as a whole by every getWarps() call
+    private volatile Map<String, String> warpGroups = Collections.emptyMap();
+    private volatile Map<String, WarpDetails> warpDetails = Collections.emptyMap();
+    // Reflective lookups per class, empty when the installed CMI version lacks the method
+    private final Map<Class<?>, Map<String, Optional<Method>>> methodCache = new ConcurrentHashMap<>();
+    private final Map<Class<?>, DetailAccessors> detailAccessors = new ConcurrentHashMap<>();
+    // Warp owner names, so offline players are not looked up on every refresh
+    private final Map<UUID, String> ownerNames = new ConcurrentHashMap<>();
+
+    /**
+     * The getters providing warp details on one warp class, null when missing
+     */
+    private record DetailAccessors(Method owner, Method createdAt, Method description) {
+    }
 
     public CMIIntegration(BluemapCMIPlugin plugin) throws Exception {
         this.plugin = plugin;
@@ -82,6 +99,8 @@ public class CMIIntegration {
                 
                 if (warpsMap instanceof Map) {
                     Map<?, ?> cmiWarps = (Map<?, ?>) warpsMap;
+                    Map<String, String> groups = new HashMap<>();
+                    Map<String, WarpDetails> details = new HashMap<>();
                     
                     for (Map.Entry<?, ?> entry : cmiWarps.entrySet()) {
                         if (entry.getKey() != null && entry.getValue() != null) {
@@ -94,17 +113,21 @@ public class CMIIntegration {
                                 Location loc = (Location) getLocMethod.invoke(warpObj);
                                 if (loc != null) {
                                     warps.put(warpName, loc);
+                                    String group = readWarpGroup(warpObj);
+                                    if (group != null) {
+                                        groups.put(warpName, group);
+                                    }
+                                    details.put(warpName, readWarpDetails(warpObj));
                                 }
                             } catch (Exception e) {
-                                if (plugin.getConfig().getBoolean("settings.debug", false)) {
-                                    plugin.getLogger().warning("Could not get location for warp '" + warpName + "': " + e.getMessage());
-                                }
+                                plugin.getDebugLog().log("warps", "Could not get location for warp '{}': {}", warpName, e.getMessage());
                             }
                         }
                     }
-                    if (plugin.getConfig().getBoolean("settings.debug", false)) {
-                        plugin.getLogger().info("Retrieved " + warps.size() + " warps from CMI");
-                    }
+                    // Deleted warps drop out with the old maps
+                    warpGroups = Collections.unmodifiableMap(groups);
+                    warpDetails = Collections.unmodifiableMap(details);
+                    plugin.getDebugLog().log("warps", "Retrieved {} warps from CMI", warps.size());
                 }
             }
         } catch (Exception e) {
@@ -117,6 +140,220 @@ public class CMIIntegration {
         return warps;
     }
 
+    /**
+     * Get the CMI group of a warp, as read by the last call to getWarps()
+     */
+    public String getWarpGroup(String warpName) {
+        return warpGroups.get(warpName);
+    }
+
+    private String readWarpGroup(Object warpObj) {
+        // Not every CMI version stores a group on warps
+        Method getGroupMethod = findMethod(warpObj.getClass(), "getGroup");
+        if (getGroupMethod == null) {
+            return null;
+        }
+
+        try {
+            Object group = getGroupMethod.invoke(warpObj);
+            if (group != null && !(group instanceof String)) {
+                // Group objects expose their name through getName()
+                Method getNameMethod = findMethod(group.getClass(), "getName");
+                group = getNameMethod != null ? getNameMethod.invoke(group) : null;
+            }
+            return group != null ? group.toString() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Look up a public no-argument method, resolved once per class
+     *
+     * @return the method, or null if the class does not have it
+     */
+    private Method findMethod(Class<?> type, String methodName) {
+        return methodCache.computeIfAbsent(type, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(methodName, name -> {
+                try {
+                    return Optional.of(type.getMethod(name));
+                } catch (NoSuchMethodException e) {
+                    return Optional.empty();
+                }
+            })
+            .orElse(null);
+    }
+
+    /**
+     * Get the owner, creation time and description of a warp, as read by the last call to getWarps()
+     */
+    public WarpDetails getWarpDetails(String warpName) {
+        return warpDetails.get(warpName);
+    }
+
+    private WarpDetails readWarpDetails(Object warpObj) {
+        DetailAccessors accessors = detailAccessors.computeIfAbsent(warpObj.getClass(), type -> new DetailAccessors(
+            firstMethod(type, "getCreator", "getOwner"),
+            firstMethod(type, "getCreationTime", "getCreated", "getCreatedAt"),
+            firstMethod(type, "getDescription", "getLore")
+        ));
+
+        String owner = null;
+        Object creator = invoke(accessors.owner(), warpObj);
+        if (creator instanceof UUID) {
+            owner = getOwnerName((UUID) creator);
+        } else if (creator instanceof String) {
+            owner = (String) creator;
+        } else if (creator != null) {
+            Object name = invokeIfPresent(creator, "getName");
+            owner = name != null ? name.toString() : null;
+        }
+
+        Long createdAt = null;
+        Object created = invoke(accessors.createdAt(), warpObj);
+        if (created instanceof Number) {
+            createdAt = ((Number) created).longValue();
+        }
+
+        String description = null;
+        Object descriptionValue = invoke(accessors.description(), warpObj);
+        if (descriptionValue instanceof Collection) {
+            List<String> lines = new ArrayList<>();
+            for (Object line : (Collection<?>) descriptionValue) {
+                lines.add(String.valueOf(line));
+            }
+            description = String.join(" ", lines);
+        } else if (descriptionValue != null) {
+            description = descriptionValue.toString();
+        }
+
+        return new WarpDetails(owner, createdAt, description);
+    }
+
+    private String getOwnerName(UUID ownerId) {
+        String name = ownerNames.get(ownerId);
+        if (name == null) {
+            // Unknown players are looked up again, they may have joined since
+            name = Bukkit.getOfflinePlayer(ownerId).getName();
+            if (name != null) {
+                ownerNames.put(ownerId, name);
+            }
+        }
+        return name;
+    }
+
+    private Method firstMethod(Class<?> type, String... methodNames) {
+        for (String methodName : methodNames) {
+            Method method = findMethod(type, methodName);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private Object invoke(Method method, Object target) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            return method.invoke(target);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the areas of all CMI portals
+     */
+    public List<CuboidRegion> getPortalRegions() {
+        return getAreaRegions("getPortalManager", "portal");
+    }
+
+    /**
+     * Get the areas of all CMI jails
+     */
+    public List<CuboidRegion> getJailRegions() {
+        return getAreaRegions("getJailManager", "jail");
+    }
+
+    private List<CuboidRegion> getAreaRegions(String managerGetter, String type) {
+        List<CuboidRegion> regions = new ArrayList<>();
+
+        try {
+            // Like warps, portals and jails are only reachable through the managers' internal maps
+            Object manager = cmiPlugin.getClass().getMethod(managerGetter).invoke(cmiPlugin);
+            if (manager == null) {
+                return regions;
+            }
+
+            for (java.lang.reflect.Field field : manager.getClass().getDeclaredFields()) {
+                if (!Map.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object fieldValue = field.get(manager);
+                if (!(fieldValue instanceof Map)) {
+                    continue;
+                }
+
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) fieldValue).entrySet()) {
+                    if (entry.getKey() != null && entry.getValue() != null) {
+                        CuboidRegion region = toRegion(entry.getKey().toString(), entry.getValue());
+                        if (region != null) {
+                            regions.add(region);
+                        }
+                    }
+                }
+
+                // The first map holding areas is the one we are after
+                if (!regions.isEmpty()) {
+                    break;
+                }
+            }
+
+            plugin.getDebugLog().log("areas", "Retrieved {} {} areas from CMI", regions.size(), type);
+        } catch (Exception e) {
+            plugin.getDebugLog().log("areas", "Could not get {} areas: {}", type, e.getMessage());
+        }
+
+        return regions;
+    }
+
+    private CuboidRegion toRegion(String name, Object areaHolder) {
+        Object area = invokeIfPresent(areaHolder, "getArea");
+        if (area == null) {
+            area = areaHolder;
+        }
+
+        Location low = firstLocation(area, "getLowLoc", "getLowLocation", "getMinLocation");
+        Location high = firstLocation(area, "getHighLoc", "getHighLocation", "getMaxLocation");
+        if (low == null || high == null || low.getWorld() == null) {
+            return null;
+        }
+
+        return CuboidRegion.of(
+            name,
+            low.getWorld().getName(),
+            low.getBlockX(), low.getBlockY(), low.getBlockZ(),
+            high.getBlockX(), high.getBlockY(), high.getBlockZ()
+        );
+    }
+
+    private Location firstLocation(Object target, String... methodNames) {
+        for (String methodName : methodNames) {
+            Object value = invokeIfPresent(target, methodName);
+            if (value instanceof Location) {
+                return (Location) value;
+            }
+        }
+        return null;
+    }
+
+    private Object invokeIfPresent(Object target, String methodName) {
+        return invoke(findMethod(target.getClass(), methodName), target);
+    }
+
     /**
      * Check if CMI is properly loaded and accessible
      */
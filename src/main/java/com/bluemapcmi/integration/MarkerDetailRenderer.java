@@ -0,0 +1,226 @@
+package com.bluemapcmi.integration;
+
+import com.bluemapcmi.BluemapCMIPlugin;
+import org.bukkit.Location;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the detail HTML of markers from the templates in marker-details.
+ * Templates are compiled once per loaded config, and the rendered HTML is
+ * cached per marker until one of its inputs changes.
+ */
+public class MarkerDetailRenderer {
+
+    private static final int MAX_CACHED_DETAILS = 10_000;
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([a-z]+)}");
+    private static final List<String> PLACEHOLDERS = List.of(
+        "name", "label", "description", "owner", "world", "x", "y", "z", "created"
+    );
+
+    private final BluemapCMIPlugin plugin;
+    private FileConfiguration templatesConfig;
+    private Map<String, Template> templates = Collections.emptyMap();
+    private DateTimeFormatter dateFormat;
+
+    // Marker id -> rendered HTML and the inputs it was rendered from
+    private final Map<String, CachedDetail> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedDetail> eldest) {
+            return size() > MAX_CACHED_DETAILS;
+        }
+    };
+
+    /**
+     * The unformatted inputs of a rendered detail, compared on every render
+     */
+    private record DetailInputs(String templateKey, String name, String label, String description,
+                                WarpDetails details, String world, int x, int y, int z) {
+    }
+
+    private record CachedDetail(DetailInputs inputs, String html) {
+    }
+
+    /**
+     * A template split into literal text and placeholder indexes
+     */
+    private static class Template {
+
+        private final List<Object> parts = new ArrayList<>();
+        private final int length;
+
+        private Template(String source) {
+            Matcher matcher = PLACEHOLDER.matcher(source);
+            int start = 0;
+            while (matcher.find()) {
+                int index = PLACEHOLDERS.indexOf(matcher.group(1));
+                if (index < 0) {
+                    // Unknown placeholders are kept as written
+                    continue;
+                }
+                if (matcher.start() > start) {
+                    parts.add(source.substring(start, matcher.start()));
+                }
+                parts.add(index);
+                start = matcher.end();
+            }
+            if (start < source.length()) {
+                parts.add(source.substring(start));
+            }
+            this.length = source.length();
+        }
+
+        private String render(String[] values) {
+            StringBuilder html = new StringBuilder(length + 64);
+            for (Object part : parts) {
+                if (part instanceof Integer) {
+                    html.append(escapeHtml(values[(Integer) part]));
+                } else {
+                    html.append((String) part);
+                }
+            }
+            return html.toString();
+        }
+
+    }
+
+    public MarkerDetailRenderer(BluemapCMIPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the detail HTML of a marker
+     *
+     * @param templateKey the template under marker-details, e.g. "warp" or "spawn"
+     * @return the HTML, or null if there is no template for this marker type
+     */
+    public synchronized String render(String markerId, String templateKey, String name, String label,
+                                      String description, Location location, WarpDetails details) {
+        compileIfNeeded();
+
+        Template template = templates.get(templateKey);
+        if (template == null) {
+            return null;
+        }
+
+        DetailInputs inputs = new DetailInputs(
+            templateKey,
+            name,
+            label,
+            description,
+            details,
+            location.getWorld() != null ? location.getWorld().getName() : null,
+            location.getBlockX(),
+            location.getBlockY(),
+            location.getBlockZ()
+        );
+
+        CachedDetail cached = cache.get(markerId);
+        if (cached != null && cached.inputs().equals(inputs)) {
+            return cached.html();
+        }
+
+        // Only format the values when the marker changed
+        String[] values = {
+            name,
+            label,
+            details != null && details.description() != null ? details.description() : description,
+            details != null && details.owner() != null ? details.owner() : "Unknown",
+            inputs.world() != null ? inputs.world() : "unknown-world",
+            Integer.toString(inputs.x()),
+            Integer.toString(inputs.y()),
+            Integer.toString(inputs.z()),
+            details != null && details.createdAt() != null ? formatDate(details.createdAt()) : "Unknown"
+        };
+
+        String html = template.render(values);
+        cache.put(markerId, new CachedDetail(inputs, html));
+        return html;
+    }
+
+    /**
+     * Recompile the templates when the config was reloaded
+     */
+    private void compileIfNeeded() {
+        FileConfiguration config = plugin.getConfig();
+        if (config == templatesConfig) {
+            return;
+        }
+
+        templatesConfig = config;
+        cache.clear();
+
+        Map<String, Template> compiled = new HashMap<>();
+        if (config.getBoolean("marker-details.enabled", true)) {
+            for (String key : new String[]{"warp", "spawn", "first-spawn"}) {
+                String source = config.getString("marker-details." + key);
+                if (source != null && !source.isBlank()) {
+                    compiled.put(key, new Template(source));
+                }
+            }
+        }
+        templates = compiled;
+
+        String pattern = config.getString("marker-details.date-format", "yyyy-MM-dd HH:mm");
+        try {
+            dateFormat = DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid marker-details.date-format '" + pattern + "': " + e.getMessage());
+            dateFormat = DateTimeFormatter.ISO_LOCAL_DATE.withZone(ZoneId.systemDefault());
+        }
+    }
+
+    private String formatDate(long epochMillis) {
+        return dateFormat.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    private static String escapeHtml(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement;
+            switch (value.charAt(i)) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                case '\'':
+                    replacement = "&#39;";
+                    break;
+                default:
+                    replacement = null;
+                    break;
+            }
+
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(value.charAt(i));
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+}
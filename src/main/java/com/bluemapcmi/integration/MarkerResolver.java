@@ -0,0 +1,182 @@
+package com.bluemapcmi.integration;
+
+import com.bluemapcmi.BluemapCMIPlugin;
+import com.bluemapcmi.network.MarkerRecord;
+import org.bukkit.Location;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.*;
+
+/**
+ * Resolves the local spawn and warp markers once per refresh: blacklist,
+ * most used warps, categories and popup details. The result is shared by
+ * the BlueMap integration and the network publisher.
+ */
+public class MarkerResolver {
+
+    private final BluemapCMIPlugin plugin;
+    private final MarkerDetailRenderer detailRenderer;
+    private WarpCategories warpCategories;
+    private FileConfiguration warpCategoriesConfig;
+
+    public MarkerResolver(BluemapCMIPlugin plugin) {
+        this.plugin = plugin;
+        this.detailRenderer = new MarkerDetailRenderer(plugin);
+    }
+
+    /**
+     * Resolve all local markers. Must be called on the main thread.
+     *
+     * @return the markers by id, in display order
+     */
+    public synchronized Map<String, MarkerRecord> resolve() {
+        Map<String, MarkerRecord> markers = new LinkedHashMap<>();
+        CMIIntegration cmiIntegration = plugin.getCMIIntegration();
+
+        if (plugin.getConfig().getBoolean("spawn-marker.enabled", true)) {
+            addLocationMarker(
+                markers,
+                "spawn",
+                "spawn",
+                cmiIntegration.getSpawn(),
+                plugin.getConfig().getString("spawn-marker.label", "Spawn"),
+                plugin.getConfig().getString("spawn-marker.description", "Server spawn location")
+            );
+        }
+
+        if (plugin.getConfig().getBoolean("first-spawn-marker.enabled", true)) {
+            addLocationMarker(
+                markers,
+                "first-spawn",
+                "firstspawn",
+                cmiIntegration.getFirstSpawn(),
+                plugin.getConfig().getString("first-spawn-marker.label", "First Spawn"),
+                plugin.getConfig().getString("first-spawn-marker.description", "First spawn location for new players")
+            );
+        }
+
+        // Warps are always read so the usage tracker recognises warp teleports
+        Map<String, Location> warps = cmiIntegration.getWarps();
+        WarpUsageTracker usageTracker = plugin.getWarpUsageTracker();
+        if (usageTracker != null) {
+            usageTracker.updateWarpIndex(warps);
+        }
+
+        if (plugin.getConfig().getBoolean("warps-marker.enabled", true)) {
+            addWarpMarkers(markers, warps);
+        }
+
+        return markers;
+    }
+
+    /**
+     * Get the warp categories, recompiling them when the config was reloaded
+     */
+    public synchronized WarpCategories getWarpCategories() {
+        FileConfiguration config = plugin.getConfig();
+        if (warpCategories == null || config != warpCategoriesConfig) {
+            warpCategories = WarpCategories.fromConfig(config.getConfigurationSection("warp-categories"), plugin.getLogger());
+            warpCategoriesConfig = config;
+        }
+        return warpCategories;
+    }
+
+    private void addLocationMarker(Map<String, MarkerRecord> markers, String markerId, String type,
+                                   Location location, String label, String description) {
+        if (location == null || location.getWorld() == null) {
+            return;
+        }
+
+        // Check if world is blacklisted
+        if (isWorldBlacklisted(location.getWorld().getName())) {
+            plugin.getDebugLog().log("spawn", "Skipping {} marker - world {} is blacklisted", markerId, location.getWorld().getName());
+            return;
+        }
+
+        String detail = detailRenderer.render(markerId, "firstspawn".equals(type) ? "first-spawn" : type,
+            label, label, description, location, null);
+        markers.put(markerId, toRecord(markerId, type, "", location, label, detail));
+        if (plugin.getDebugLog().isEnabled()) {
+            plugin.getDebugLog().log("spawn", "{} marker added at {}", label, formatLocation(location));
+        }
+    }
+
+    private void addWarpMarkers(Map<String, MarkerRecord> markers, Map<String, Location> warps) {
+        CMIIntegration cmiIntegration = plugin.getCMIIntegration();
+        WarpUsageTracker usageTracker = plugin.getWarpUsageTracker();
+        WarpCategories categories = getWarpCategories();
+        int maxWarps = plugin.getConfig().getInt("warps-marker.max-warps", 0);
+        int count = 0;
+        int skipped = 0;
+
+        Map<String, Location> visibleWarps = new HashMap<>();
+        for (Map.Entry<String, Location> warp : warps.entrySet()) {
+            Location warpLocation = warp.getValue();
+            if (warpLocation != null && warpLocation.getWorld() != null) {
+                // Check if world is blacklisted
+                if (isWorldBlacklisted(warpLocation.getWorld().getName())) {
+                    skipped++;
+                    plugin.getDebugLog().log("warps", "Skipping warp '{}' - world {} is blacklisted", warp.getKey(), warpLocation.getWorld().getName());
+                    continue;
+                }
+                visibleWarps.put(warp.getKey(), warpLocation);
+            }
+        }
+
+        // Only publish the most used warps when a limit is set
+        if (maxWarps > 0 && usageTracker != null) {
+            visibleWarps = usageTracker.selectTopWarps(visibleWarps, maxWarps);
+            usageTracker.saveAsync();
+        }
+
+        for (Map.Entry<String, Location> warp : visibleWarps.entrySet()) {
+            if (maxWarps > 0 && count >= maxWarps) {
+                break;
+            }
+
+            String markerId = "warp-" + warp.getKey();
+            String label = "Warp: " + warp.getKey();
+            Location location = warp.getValue();
+            String detail = detailRenderer.render(markerId, "warp", warp.getKey(), label,
+                "Warp point: " + warp.getKey(), location, cmiIntegration.getWarpDetails(warp.getKey()));
+
+            WarpCategories.Category category = categories.categorize(warp.getKey(), cmiIntegration.getWarpGroup(warp.getKey()));
+            markers.put(markerId, toRecord(markerId, "warp", category != null ? category.getKey() : "", location, label, detail));
+            count++;
+        }
+
+        plugin.getDebugLog().log("warps", "Retrieved {} warp markers ({} skipped from blacklisted worlds)", count, skipped);
+    }
+
+    private MarkerRecord toRecord(String markerId, String type, String category, Location location, String label, String detail) {
+        return new MarkerRecord(
+            markerId,
+            type,
+            category,
+            location.getWorld().getName(),
+            location.getX(),
+            location.getY(),
+            location.getZ(),
+            label,
+            detail
+        );
+    }
+
+    private String formatLocation(Location location) {
+        return String.format("%s [%.0f, %.0f, %.0f]",
+            location.getWorld().getName(),
+            location.getX(),
+            location.getY(),
+            location.getZ()
+        );
+    }
+
+    /**
+     * Check if a world is blacklisted in the config
+     */
+    private boolean isWorldBlacklisted(String worldName) {
+        List<String> blacklist = plugin.getConfig().getStringList("world-blacklist");
+        return blacklist != null && blacklist.contains(worldName);
+    }
+
+}
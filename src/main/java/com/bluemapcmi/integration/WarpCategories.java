@@ -0,0 +1,128 @@
+package com.bluemapcmi.integration;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Warp categories compiled from the warp-categories config section.
+ * A warp belongs to the first category whose CMI groups or name rules match it.
+ */
+public class WarpCategories {
+
+    private final List<Category> categories;
+
+    private WarpCategories(List<Category> categories) {
+        this.categories = Collections.unmodifiableList(categories);
+    }
+
+    public static class Category {
+
+        private final String key;
+        private final String label;
+        private final boolean defaultHidden;
+        private final Set<String> groups;
+        private final Pattern namePattern;
+
+        private Category(String key, String label, boolean defaultHidden, Set<String> groups, Pattern namePattern) {
+            this.key = key;
+            this.label = label;
+            this.defaultHidden = defaultHidden;
+            this.groups = groups;
+            this.namePattern = namePattern;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean isDefaultHidden() {
+            return defaultHidden;
+        }
+
+        private boolean matches(String warpName, String group) {
+            if (group != null && groups.contains(group.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+            return namePattern != null && namePattern.matcher(warpName).matches();
+        }
+
+    }
+
+    /**
+     * Compile the categories from config. Prefixes and regex patterns of a
+     * category are joined into a single pattern so each warp is matched once.
+     */
+    public static WarpCategories fromConfig(ConfigurationSection section, Logger logger) {
+        List<Category> categories = new ArrayList<>();
+        if (section == null) {
+            return new WarpCategories(categories);
+        }
+
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection categorySection = section.getConfigurationSection(key);
+            if (categorySection == null) {
+                continue;
+            }
+
+            Set<String> groups = new HashSet<>();
+            for (String group : categorySection.getStringList("groups")) {
+                groups.add(group.toLowerCase(Locale.ROOT));
+            }
+
+            List<String> alternatives = new ArrayList<>();
+            for (String prefix : categorySection.getStringList("prefixes")) {
+                alternatives.add(Pattern.quote(prefix) + ".*");
+            }
+            for (String pattern : categorySection.getStringList("patterns")) {
+                try {
+                    Pattern.compile(pattern);
+                    alternatives.add(pattern);
+                } catch (PatternSyntaxException e) {
+                    logger.warning("Invalid pattern '" + pattern + "' in warp category '" + key + "': " + e.getDescription());
+                }
+            }
+
+            Pattern namePattern = null;
+            if (!alternatives.isEmpty()) {
+                namePattern = Pattern.compile("(?:" + String.join(")|(?:", alternatives) + ")", Pattern.CASE_INSENSITIVE);
+            }
+
+            categories.add(new Category(
+                key.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]", "_"),
+                categorySection.getString("label", key),
+                categorySection.getBoolean("default-hidden", false),
+                groups,
+                namePattern
+            ));
+        }
+
+        return new WarpCategories(categories);
+    }
+
+    /**
+     * Find the category of a warp
+     *
+     * @return the first matching category, or null if the warp is uncategorized
+     */
+    public Category categorize(String warpName, String group) {
+        for (Category category : categories) {
+            if (category.matches(warpName, group)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+}
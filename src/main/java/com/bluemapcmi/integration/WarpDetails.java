@@ -0,0 +1,8 @@
+package com.bluemapcmi.integration;
+
+/**
+ * Extra warp information shown in marker popups, any part may be null
+ * when the installed CMI version does not provide it
+ */
+public record WarpDetails(String owner, Long createdAt, String description) {
+}
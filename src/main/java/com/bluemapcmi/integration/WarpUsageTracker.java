@@ -0,0 +1,268 @@
+package com.bluemapcmi.integration;
+
+import com.bluemapcmi.BluemapCMIPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts warp teleports and keeps a time-decayed popularity score per warp,
+ * used to pick which warps are shown when warps-marker.max-warps is set.
+ * CMI fires no warp event, so a teleport only counts when it follows a warp
+ * command of the same player.
+ */
+public class WarpUsageTracker implements Listener {
+
+    private static final String USAGE_FILE = "warp-usage.yml";
+    private static final double MIN_SCORE = 0.01;
+
+    private final BluemapCMIPlugin plugin;
+    private final File usageFile;
+
+    // Hot path: incremented from the teleport listener without locking
+    private final Map<String, LongAdder> liveCounts = new ConcurrentHashMap<>();
+    // Decayed scores, guarded by this
+    private final Map<String, Double> scores = new HashMap<>();
+    private long lastDecay;
+
+    // Block position -> warp name and lowercase name -> warp name, rebuilt whenever warps are read from CMI
+    private volatile Map<String, String> warpIndex = Collections.emptyMap();
+    private volatile Map<String, String> warpNames = Collections.emptyMap();
+    // Warp commands waiting for their teleport, the warp is null when the command named none
+    private final Map<UUID, PendingWarp> pendingWarps = new ConcurrentHashMap<>();
+
+    // Snapshots are numbered so an older one never overwrites a newer one
+    private long snapshotSequence; // guarded by this
+    private long savedSequence; // guarded by usageFile
+
+    private record PendingWarp(String warpName, long time) {
+    }
+
+    private record UsageSnapshot(long sequence, YamlConfiguration usage) {
+    }
+
+    public WarpUsageTracker(BluemapCMIPlugin plugin) {
+        this.plugin = plugin;
+        this.usageFile = new File(plugin.getDataFolder(), USAGE_FILE);
+        this.lastDecay = System.currentTimeMillis();
+        load();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        String[] parts = event.getMessage().split(" ");
+        String label = parts[0].substring(1).toLowerCase(Locale.ROOT);
+        // Namespaced commands like /cmi:warp
+        label = label.substring(label.indexOf(':') + 1);
+
+        if (!plugin.getConfig().getStringList("warps-marker.popularity.warp-commands").contains(label)) {
+            return;
+        }
+
+        String warpName = parts.length > 1 ? warpNames.get(parts[1].toLowerCase(Locale.ROOT)) : null;
+        pendingWarps.put(event.getPlayer().getUniqueId(), new PendingWarp(warpName, System.currentTimeMillis()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        // CMI warps teleport through commands or the plugin API
+        if (event.getCause() != PlayerTeleportEvent.TeleportCause.COMMAND
+                && event.getCause() != PlayerTeleportEvent.TeleportCause.PLUGIN) {
+            return;
+        }
+
+        PendingWarp pending = pendingWarps.remove(event.getPlayer().getUniqueId());
+        long window = Math.max(1, plugin.getConfig().getInt("warps-marker.popularity.teleport-window-seconds", 10)) * 1000L;
+        if (pending == null || System.currentTimeMillis() - pending.time() > window) {
+            return;
+        }
+
+        // Commands without a warp name (e.g. the warp menu) are matched by destination
+        String warpName = pending.warpName();
+        Location to = event.getTo();
+        if (warpName == null && to != null && to.getWorld() != null) {
+            warpName = warpIndex.get(blockKey(to));
+        }
+        if (warpName != null) {
+            liveCounts.computeIfAbsent(warpName, k -> new LongAdder()).increment();
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        pendingWarps.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Read the warps from CMI, rebuild the lookup and persist the scores.
+     * Used on update cycles where no markers are resolved. Must be called on the main thread.
+     */
+    public void refresh() {
+        CMIIntegration cmiIntegration = plugin.getCMIIntegration();
+        if (cmiIntegration != null) {
+            updateWarpIndex(cmiIntegration.getWarps());
+        }
+        saveAsync();
+    }
+
+    /**
+     * Rebuild the lookup used to recognise warp teleports
+     */
+    public void updateWarpIndex(Map<String, Location> warps) {
+        Map<String, String> index = new HashMap<>();
+        Map<String, String> names = new HashMap<>();
+        for (Map.Entry<String, Location> warp : warps.entrySet()) {
+            names.put(warp.getKey().toLowerCase(Locale.ROOT), warp.getKey());
+            Location location = warp.getValue();
+            if (location != null && location.getWorld() != null) {
+                index.put(blockKey(location), warp.getKey());
+            }
+        }
+        warpIndex = Collections.unmodifiableMap(index);
+        warpNames = Collections.unmodifiableMap(names);
+    }
+
+    /**
+     * Select the most used warps, ordered from most to least popular.
+     * Uses a bounded min-heap so only the top entries are kept.
+     */
+    public synchronized Map<String, Location> selectTopWarps(Map<String, Location> warps, int limit) {
+        if (limit <= 0 || warps.size() <= limit) {
+            return warps;
+        }
+
+        decayAndMerge();
+
+        // Ties go to the alphabetically first name so the selection is stable between restarts
+        Comparator<String> popularity = Comparator.<String>comparingDouble(name -> scores.getOrDefault(name, 0.0))
+            .thenComparing(Comparator.reverseOrder());
+
+        PriorityQueue<String> heap = new PriorityQueue<>(limit, popularity);
+        for (String name : warps.keySet()) {
+            if (heap.size() < limit) {
+                heap.add(name);
+            } else if (popularity.compare(name, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(name);
+            }
+        }
+
+        List<String> selected = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            selected.add(heap.poll());
+        }
+        Collections.reverse(selected);
+
+        Map<String, Location> result = new LinkedHashMap<>();
+        for (String name : selected) {
+            result.put(name, warps.get(name));
+        }
+        return result;
+    }
+
+    private void decayAndMerge() {
+        long now = System.currentTimeMillis();
+        double halfLifeHours = Math.max(1.0, plugin.getConfig().getDouble("warps-marker.popularity.half-life-hours", 168));
+        double factor = Math.pow(0.5, (now - lastDecay) / (halfLifeHours * 3_600_000d));
+        lastDecay = now;
+
+        if (factor < 1.0) {
+            scores.replaceAll((name, score) -> score * factor);
+        }
+
+        for (Map.Entry<String, LongAdder> entry : liveCounts.entrySet()) {
+            long hits = entry.getValue().sumThenReset();
+            if (hits > 0) {
+                scores.merge(entry.getKey(), (double) hits, Double::sum);
+            }
+        }
+
+        // Forget warps nobody has used for a long time
+        scores.values().removeIf(score -> score < MIN_SCORE);
+    }
+
+    private void load() {
+        if (!usageFile.exists()) {
+            return;
+        }
+
+        YamlConfiguration usage = YamlConfiguration.loadConfiguration(usageFile);
+        lastDecay = usage.getLong("last-decay", lastDecay);
+
+        // Stored as "<score> <name>" so warp names never clash with YAML path separators
+        for (String line : usage.getStringList("scores")) {
+            String[] parts = line.split(" ", 2);
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                scores.put(parts[1], Double.parseDouble(parts[0]));
+            } catch (NumberFormatException e) {
+                if (plugin.getConfig().getBoolean("settings.debug", false)) {
+                    plugin.getLogger().warning("Ignoring invalid warp usage entry: " + line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Persist the current scores on a background thread
+     */
+    public void saveAsync() {
+        UsageSnapshot snapshot = snapshot();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> write(snapshot));
+    }
+
+    /**
+     * Persist the current scores immediately
+     */
+    public void save() {
+        write(snapshot());
+    }
+
+    private synchronized UsageSnapshot snapshot() {
+        decayAndMerge();
+
+        List<String> lines = new ArrayList<>(scores.size());
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            lines.add(String.format(Locale.ROOT, "%.4f %s", entry.getValue(), entry.getKey()));
+        }
+
+        YamlConfiguration usage = new YamlConfiguration();
+        usage.set("last-decay", lastDecay);
+        usage.set("scores", lines);
+        return new UsageSnapshot(++snapshotSequence, usage);
+    }
+
+    private void write(UsageSnapshot snapshot) {
+        synchronized (usageFile) {
+            // A newer snapshot was already written by another thread
+            if (snapshot.sequence() <= savedSequence) {
+                return;
+            }
+            try {
+                snapshot.usage().save(usageFile);
+                savedSequence = snapshot.sequence();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to save warp usage: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String blockKey(Location location) {
+        return location.getWorld().getName() + ":" + location.getBlockX() + ":" + location.getBlockY() + ":" + location.getBlockZ();
+    }
+
+}
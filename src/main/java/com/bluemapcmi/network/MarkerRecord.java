@@ -0,0 +1,10 @@
+package com.bluemapcmi.network;
+
+/**
+ * A resolved marker, as shown on the local BlueMap and exchanged between
+ * servers through the shared store. Category is empty for uncategorized
+ * markers, detail is null when no popup template applies.
+ */
+public record MarkerRecord(String id, String type, String category, String world,
+                           double x, double y, double z, String label, String detail) {
+}
@@ -0,0 +1,144 @@
+package com.bluemapcmi.network;
+
+import com.bluemapcmi.BluemapCMIPlugin;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Shares resolved markers between servers of a network. Backends publish
+ * their markers to the shared store, the server running BlueMap reads the
+ * other servers' markers back and shows them in namespaced marker sets.
+ */
+public class NetworkMarkerSync {
+
+    private final BluemapCMIPlugin plugin;
+    private final SharedMarkerStore store;
+    private final String serverId;
+    private final boolean publish;
+    private final boolean aggregate;
+    private final long compactThreshold;
+
+    // Markers as last written to the store, null until the first snapshot; guarded by this
+    private Map<String, MarkerRecord> published;
+
+    public NetworkMarkerSync(BluemapCMIPlugin plugin) throws IOException {
+        this.plugin = plugin;
+        this.serverId = resolveServerId(plugin);
+        this.publish = plugin.getConfig().getBoolean("network.publish", true);
+        this.aggregate = plugin.getConfig().getBoolean("network.aggregate", false);
+        this.compactThreshold = plugin.getConfig().getLong("network.compact-after-kb", 512) * 1024L;
+
+        File directory = new File(plugin.getConfig().getString("network.store-directory", "network"));
+        if (!directory.isAbsolute()) {
+            directory = new File(plugin.getDataFolder(), directory.getPath());
+        }
+        this.store = new SharedMarkerStore(directory.toPath());
+
+        if (plugin.getConfig().getBoolean("settings.debug", false)) {
+            plugin.getLogger().info("Network marker sync using " + directory.getAbsolutePath() + " as server '" + serverId + "'");
+        }
+    }
+
+    /**
+     * Publish this server's resolved markers. The store is written on a background thread.
+     */
+    public void publish(Map<String, MarkerRecord> markers) {
+        if (!publish) {
+            return;
+        }
+
+        Map<String, MarkerRecord> current = new LinkedHashMap<>(markers);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> writeChanges(current));
+    }
+
+    /**
+     * Read new markers from the other servers. Safe to call off the main thread.
+     *
+     * @return the ids of servers whose markers changed
+     */
+    public Set<String> poll() {
+        if (!aggregate) {
+            return Collections.emptySet();
+        }
+
+        try {
+            return store.poll(serverId);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Error reading network markers: " + e.getMessage());
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Get the markers last read for another server
+     */
+    public Map<String, MarkerRecord> getRemoteMarkers(String remoteServerId) {
+        return store.getMarkers(remoteServerId);
+    }
+
+    /**
+     * Get the ids of all other servers read so far
+     */
+    public Set<String> getRemoteServerIds() {
+        return store.getServerIds();
+    }
+
+    public boolean isAggregating() {
+        return aggregate;
+    }
+
+    private synchronized void writeChanges(Map<String, MarkerRecord> current) {
+        try {
+            long size = store.size(serverId);
+            if (published == null || size < 0 || size > compactThreshold) {
+                // First publish since startup, or the log grew too large
+                store.writeSnapshot(serverId, current.values());
+                published = current;
+                return;
+            }
+
+            List<MarkerRecord> updated = new ArrayList<>();
+            for (MarkerRecord marker : current.values()) {
+                if (!marker.equals(published.get(marker.id()))) {
+                    updated.add(marker);
+                }
+            }
+
+            List<String> removed = new ArrayList<>();
+            for (String markerId : published.keySet()) {
+                if (!current.containsKey(markerId)) {
+                    removed.add(markerId);
+                }
+            }
+
+            store.append(serverId, updated, removed);
+            published = current;
+
+            if (!updated.isEmpty() || !removed.isEmpty()) {
+                plugin.getDebugLog().log("network", "Published {} updated and {} removed network markers", updated.size(), removed.size());
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Error publishing network markers: " + e.getMessage());
+            // Rewrite everything on the next publish
+            published = null;
+        }
+    }
+
+    /**
+     * Get the configured server id, or derive one from the server port. Servers
+     * sharing an id overwrite each other's markers in the store.
+     */
+    private static String resolveServerId(BluemapCMIPlugin plugin) {
+        String serverId = plugin.getConfig().getString("network.server-id", "");
+        if (serverId == null || serverId.isBlank()) {
+            serverId = "server-" + Bukkit.getPort();
+            plugin.getLogger().warning("network.server-id is not set, using '" + serverId
+                + "'. Set a unique id on every server sharing the marker store.");
+        }
+        return serverId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]", "_");
+    }
+
+}
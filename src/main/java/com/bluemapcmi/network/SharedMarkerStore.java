@@ -0,0 +1,297 @@
+package com.bluemapcmi.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Append-only marker logs in a directory shared by several servers.
+ * Each server writes to its own "<server-id>.log" file; readers tail the
+ * other files incrementally and keep the merged marker state in memory.
+ *
+ * A log starts with a header line carrying a generation id. Compacting a log
+ * replaces it with a fresh snapshot under a new generation, which tells
+ * readers to drop what they had and read the file from the start.
+ */
+public class SharedMarkerStore {
+
+    private static final String LOG_SUFFIX = ".log";
+    private static final String HEADER = "BMCMI";
+    private static final int MAX_HEADER_LENGTH = 128;
+
+    private final Path directory;
+    private final Map<String, ServerLog> logs = new HashMap<>();
+
+    private static class ServerLog {
+        private String generation;
+        private long offset;
+        private final Map<String, MarkerRecord> markers = new HashMap<>();
+    }
+
+    public SharedMarkerStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Replace a server's log with a snapshot of all its markers
+     */
+    public synchronized void writeSnapshot(String serverId, Collection<MarkerRecord> markers) throws IOException {
+        StringBuilder content = new StringBuilder();
+        content.append(HEADER).append(' ').append(UUID.randomUUID()).append('\n');
+        for (MarkerRecord marker : markers) {
+            appendPut(content, marker);
+        }
+
+        Path file = logFile(serverId);
+        Path temp = directory.resolve(serverId + ".tmp");
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Append a batch of changes to a server's log in a single write
+     */
+    public synchronized void append(String serverId, Collection<MarkerRecord> updated, Collection<String> removed) throws IOException {
+        if (updated.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        StringBuilder batch = new StringBuilder();
+        for (MarkerRecord marker : updated) {
+            appendPut(batch, marker);
+        }
+        for (String markerId : removed) {
+            batch.append("DEL\t").append(escape(markerId)).append('\n');
+        }
+
+        Files.writeString(logFile(serverId), batch, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Get the size of a server's log, or -1 if it has not been written yet
+     */
+    public synchronized long size(String serverId) throws IOException {
+        Path file = logFile(serverId);
+        return Files.exists(file) ? Files.size(file) : -1;
+    }
+
+    /**
+     * Read everything appended to the other servers' logs since the last poll
+     *
+     * @return the ids of servers whose markers changed
+     */
+    public synchronized Set<String> poll(String ownServerId) throws IOException {
+        Set<String> changed = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + LOG_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String serverId = fileName.substring(0, fileName.length() - LOG_SUFFIX.length());
+                if (serverId.equals(ownServerId)) {
+                    continue;
+                }
+
+                seen.add(serverId);
+                if (readLog(serverId, file)) {
+                    changed.add(serverId);
+                }
+            }
+        }
+
+        // Servers whose log was removed no longer have markers
+        Iterator<Map.Entry<String, ServerLog>> iterator = logs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ServerLog> entry = iterator.next();
+            if (!seen.contains(entry.getKey())) {
+                iterator.remove();
+                changed.add(entry.getKey());
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Get the markers last read for a server
+     */
+    public synchronized Map<String, MarkerRecord> getMarkers(String serverId) {
+        ServerLog log = logs.get(serverId);
+        return log != null ? new HashMap<>(log.markers) : Collections.emptyMap();
+    }
+
+    /**
+     * Get the ids of all servers read so far
+     */
+    public synchronized Set<String> getServerIds() {
+        return new HashSet<>(logs.keySet());
+    }
+
+    private boolean readLog(String serverId, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer headerBuffer = ByteBuffer.allocate(MAX_HEADER_LENGTH);
+            channel.read(headerBuffer, 0);
+            int headerEnd = indexOfNewline(headerBuffer.array(), headerBuffer.position());
+            if (headerEnd < 0) {
+                // Header not fully written yet
+                return false;
+            }
+
+            String generation = new String(headerBuffer.array(), 0, headerEnd, StandardCharsets.UTF_8);
+            if (!generation.startsWith(HEADER + " ")) {
+                return false;
+            }
+
+            boolean changed = false;
+            ServerLog log = logs.computeIfAbsent(serverId, id -> new ServerLog());
+            if (!generation.equals(log.generation)) {
+                // New or compacted log, start over
+                log.generation = generation;
+                log.offset = headerEnd + 1;
+                if (!log.markers.isEmpty()) {
+                    log.markers.clear();
+                    changed = true;
+                }
+            }
+
+            long size = channel.size();
+            if (size <= log.offset) {
+                return changed;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - log.offset));
+            while (buffer.hasRemaining() && channel.read(buffer, log.offset + buffer.position()) > 0) {
+                // Keep reading until the buffer is full or the end of the file is reached
+            }
+
+            // Only consume complete lines, a partial batch is picked up on the next poll
+            int end = lastIndexOfNewline(buffer.array(), buffer.position());
+            if (end < 0) {
+                return changed;
+            }
+
+            String chunk = new String(buffer.array(), 0, end, StandardCharsets.UTF_8);
+            log.offset += end + 1;
+
+            for (String line : chunk.split("\n")) {
+                changed |= applyLine(log, line);
+            }
+            return changed;
+        }
+    }
+
+    private boolean applyLine(ServerLog log, String line) {
+        String[] parts = line.split("\t", -1);
+        switch (parts[0]) {
+            case "PUT":
+                if (parts.length != 10) {
+                    return false;
+                }
+                try {
+                    MarkerRecord marker = new MarkerRecord(
+                        unescape(parts[1]),
+                        unescape(parts[2]),
+                        unescape(parts[3]),
+                        unescape(parts[4]),
+                        Double.parseDouble(parts[5]),
+                        Double.parseDouble(parts[6]),
+                        Double.parseDouble(parts[7]),
+                        unescape(parts[8]),
+                        parts[9].isEmpty() ? null : unescape(parts[9])
+                    );
+                    return !marker.equals(log.markers.put(marker.id(), marker));
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            case "DEL":
+                return parts.length == 2 && log.markers.remove(unescape(parts[1])) != null;
+            default:
+                return false;
+        }
+    }
+
+    private Path logFile(String serverId) {
+        return directory.resolve(serverId + LOG_SUFFIX);
+    }
+
+    private static void appendPut(StringBuilder builder, MarkerRecord marker) {
+        builder.append("PUT\t")
+            .append(escape(marker.id())).append('\t')
+            .append(escape(marker.type())).append('\t')
+            .append(escape(marker.category())).append('\t')
+            .append(escape(marker.world())).append('\t')
+            .append(marker.x()).append('\t')
+            .append(marker.y()).append('\t')
+            .append(marker.z()).append('\t')
+            .append(escape(marker.label())).append('\t')
+            .append(escape(marker.detail())).append('\n');
+    }
+
+    private static int indexOfNewline(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfNewline(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\")
+            .replace("\t", "\\t")
+            .replace("\n", "\\n")
+            .replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't':
+                        result.append('\t');
+                        break;
+                    case 'n':
+                        result.append('\n');
+                        break;
+                    case 'r':
+                        result.append('\r');
+                        break;
+                    default:
+                        result.append(next);
+                        break;
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+}
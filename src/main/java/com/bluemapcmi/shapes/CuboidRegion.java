@@ -0,0 +1,36 @@
+package com.bluemapcmi.shapes;
+
+/**
+ * A block aligned cuboid region, bounds are inclusive block coordinates
+ */
+public record CuboidRegion(String name, String world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+
+    /**
+     * Create a region from two corners in any order
+     */
+    public static CuboidRegion of(String name, String world, int x1, int y1, int z1, int x2, int y2, int z2) {
+        return new CuboidRegion(
+            name,
+            world,
+            Math.min(x1, x2),
+            Math.min(y1, y2),
+            Math.min(z1, z2),
+            Math.max(x1, x2),
+            Math.max(y1, y2),
+            Math.max(z1, z2)
+        );
+    }
+
+    /**
+     * Check if the regions overlap or are adjacent, including regions that
+     * only meet at an edge or corner. Regions stacked at different heights
+     * with a gap between them do not touch, even when they overlap from above.
+     */
+    public boolean touches(CuboidRegion other) {
+        return world.equals(other.world)
+            && minX <= other.maxX + 1 && other.minX <= maxX + 1
+            && minY <= other.maxY + 1 && other.minY <= maxY + 1
+            && minZ <= other.maxZ + 1 && other.minZ <= maxZ + 1;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.bluemapcmi.shapes;
+
+import java.util.List;
+
+/**
+ * The simplified outline of one or more merged regions. Points are block
+ * corner coordinates on the x/z plane, in order around the outline.
+ * Region names are sorted.
+ */
+public record RegionOutline(String world, List<String> regionNames, int minY, int maxY,
+                            List<Point> outer, List<List<Point>> holes) {
+
+    public record Point(int x, int z) {
+    }
+
+}
@@ -0,0 +1,296 @@
+package com.bluemapcmi.shapes;
+
+import java.util.*;
+
+/**
+ * Merges overlapping or adjacent cuboid regions into simplified outlines.
+ * Outlines are cached per group of merged regions, so only groups containing
+ * a changed region are recomputed.
+ */
+public class RegionOutliner {
+
+    // Directions in counter-clockwise order: +x, +z, -x, -z
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DZ = {0, 1, 0, -1};
+
+    private final Map<Set<CuboidRegion>, List<RegionOutline>> clusterCache = new HashMap<>();
+    private Set<CuboidRegion> lastRegions;
+    private List<RegionOutline> lastOutlines = Collections.emptyList();
+
+    /**
+     * Get the outlines of the given regions. Returns the exact same list
+     * instance as the previous call when the regions did not change.
+     */
+    public synchronized List<RegionOutline> outline(Collection<CuboidRegion> regions) {
+        Set<CuboidRegion> regionSet = new HashSet<>(regions);
+        if (regionSet.equals(lastRegions)) {
+            return lastOutlines;
+        }
+
+        List<RegionOutline> outlines = new ArrayList<>();
+        Set<Set<CuboidRegion>> usedClusters = new HashSet<>();
+        for (List<CuboidRegion> cluster : cluster(new ArrayList<>(regionSet))) {
+            Set<CuboidRegion> key = new HashSet<>(cluster);
+            usedClusters.add(key);
+            outlines.addAll(clusterCache.computeIfAbsent(key, k -> outlineCluster(cluster)));
+        }
+
+        // Drop geometry of regions that no longer exist
+        clusterCache.keySet().retainAll(usedClusters);
+
+        lastRegions = regionSet;
+        lastOutlines = Collections.unmodifiableList(outlines);
+        return lastOutlines;
+    }
+
+    /**
+     * Group regions that overlap or touch, using union-find
+     */
+    private static List<List<CuboidRegion>> cluster(List<CuboidRegion> regions) {
+        // Sorting keeps cluster contents and order stable between calls
+        regions.sort(Comparator.comparing(CuboidRegion::world)
+            .thenComparingInt(CuboidRegion::minX)
+            .thenComparingInt(CuboidRegion::minZ)
+            .thenComparing(CuboidRegion::name, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        int[] parent = new int[regions.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        for (int i = 0; i < regions.size(); i++) {
+            CuboidRegion region = regions.get(i);
+            for (int j = i + 1; j < regions.size(); j++) {
+                CuboidRegion other = regions.get(j);
+                // Sorted by minX, nothing further along can touch this region
+                if (!other.world().equals(region.world()) || other.minX() > region.maxX() + 1) {
+                    break;
+                }
+                if (region.touches(other)) {
+                    parent[find(parent, i)] = find(parent, j);
+                }
+            }
+        }
+
+        Map<Integer, List<CuboidRegion>> clusters = new LinkedHashMap<>();
+        for (int i = 0; i < regions.size(); i++) {
+            clusters.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(regions.get(i));
+        }
+        return new ArrayList<>(clusters.values());
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static List<RegionOutline> outlineCluster(List<CuboidRegion> cluster) {
+        // Compress the region edges into a grid, each cell is either fully inside or outside
+        TreeSet<Integer> xEdges = new TreeSet<>();
+        TreeSet<Integer> zEdges = new TreeSet<>();
+        for (CuboidRegion region : cluster) {
+            xEdges.add(region.minX());
+            xEdges.add(region.maxX() + 1);
+            zEdges.add(region.minZ());
+            zEdges.add(region.maxZ() + 1);
+        }
+
+        int[] xs = xEdges.stream().mapToInt(Integer::intValue).toArray();
+        int[] zs = zEdges.stream().mapToInt(Integer::intValue).toArray();
+        boolean[][] filled = new boolean[xs.length - 1][zs.length - 1];
+        for (CuboidRegion region : cluster) {
+            int x0 = Arrays.binarySearch(xs, region.minX());
+            int x1 = Arrays.binarySearch(xs, region.maxX() + 1);
+            int z0 = Arrays.binarySearch(zs, region.minZ());
+            int z1 = Arrays.binarySearch(zs, region.maxZ() + 1);
+            for (int i = x0; i < x1; i++) {
+                for (int j = z0; j < z1; j++) {
+                    filled[i][j] = true;
+                }
+            }
+        }
+
+        // Split corner-touching parts into separate outlines
+        int[][] component = new int[filled.length][filled.length > 0 ? filled[0].length : 0];
+        int components = 0;
+        for (int i = 0; i < filled.length; i++) {
+            for (int j = 0; j < filled[i].length; j++) {
+                if (filled[i][j] && component[i][j] == 0) {
+                    floodFill(filled, component, i, j, ++components);
+                }
+            }
+        }
+
+        // Names and heights belong to the component each region ended up in
+        int[] minY = new int[components + 1];
+        int[] maxY = new int[components + 1];
+        Arrays.fill(minY, Integer.MAX_VALUE);
+        Arrays.fill(maxY, Integer.MIN_VALUE);
+        List<List<String>> names = new ArrayList<>(components + 1);
+        for (int c = 0; c <= components; c++) {
+            names.add(new ArrayList<>());
+        }
+        for (CuboidRegion region : cluster) {
+            int c = component[Arrays.binarySearch(xs, region.minX())][Arrays.binarySearch(zs, region.minZ())];
+            minY[c] = Math.min(minY[c], region.minY());
+            maxY[c] = Math.max(maxY[c], region.maxY() + 1);
+            if (region.name() != null) {
+                names.get(c).add(region.name());
+            }
+        }
+
+        List<RegionOutline> outlines = new ArrayList<>();
+        for (int c = 1; c <= components; c++) {
+            List<List<RegionOutline.Point>> loops = traceLoops(component, c, xs, zs);
+            if (loops.isEmpty()) {
+                continue;
+            }
+
+            // The loop enclosing the largest area is the outside, any others are holes
+            List<RegionOutline.Point> outer = loops.get(0);
+            for (List<RegionOutline.Point> loop : loops) {
+                if (Math.abs(area(loop)) > Math.abs(area(outer))) {
+                    outer = loop;
+                }
+            }
+            List<List<RegionOutline.Point>> holes = new ArrayList<>(loops);
+            holes.remove(outer);
+
+            List<String> componentNames = names.get(c);
+            Collections.sort(componentNames);
+            outlines.add(new RegionOutline(cluster.get(0).world(), componentNames, minY[c], maxY[c], outer, holes));
+        }
+        return outlines;
+    }
+
+    private static void floodFill(boolean[][] filled, int[][] component, int startI, int startJ, int id) {
+        Deque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{startI, startJ});
+        component[startI][startJ] = id;
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            for (int d = 0; d < 4; d++) {
+                int i = cell[0] + DX[d];
+                int j = cell[1] + DZ[d];
+                if (i >= 0 && j >= 0 && i < filled.length && j < filled[i].length && filled[i][j] && component[i][j] == 0) {
+                    component[i][j] = id;
+                    queue.add(new int[]{i, j});
+                }
+            }
+        }
+    }
+
+    /**
+     * Walk the boundary edges of one component into closed loops with
+     * collinear points removed
+     */
+    private static List<List<RegionOutline.Point>> traceLoops(int[][] component, int id, int[] xs, int[] zs) {
+        // Directed boundary edges with the inside on the left, keyed by start corner
+        Map<Long, List<int[]>> edges = new HashMap<>();
+        for (int i = 0; i < component.length; i++) {
+            for (int j = 0; j < component[i].length; j++) {
+                if (component[i][j] != id) {
+                    continue;
+                }
+                if (!isInside(component, id, i, j - 1)) {
+                    addEdge(edges, i, j, i + 1, j, 0);
+                }
+                if (!isInside(component, id, i + 1, j)) {
+                    addEdge(edges, i + 1, j, i + 1, j + 1, 1);
+                }
+                if (!isInside(component, id, i, j + 1)) {
+                    addEdge(edges, i + 1, j + 1, i, j + 1, 2);
+                }
+                if (!isInside(component, id, i - 1, j)) {
+                    addEdge(edges, i, j + 1, i, j, 3);
+                }
+            }
+        }
+
+        List<List<RegionOutline.Point>> loops = new ArrayList<>();
+        while (!edges.isEmpty()) {
+            long startKey = edges.keySet().iterator().next();
+            int[] edge = takeEdge(edges, startKey, -1);
+            List<int[]> walked = new ArrayList<>();
+            while (edge != null) {
+                walked.add(edge);
+                long endKey = key(edge[2], edge[3]);
+                if (endKey == startKey) {
+                    break;
+                }
+                edge = takeEdge(edges, endKey, edge[4]);
+            }
+
+            // Keep only corners where the direction changes
+            List<RegionOutline.Point> loop = new ArrayList<>();
+            for (int k = 0; k < walked.size(); k++) {
+                int[] current = walked.get(k);
+                int[] previous = walked.get((k + walked.size() - 1) % walked.size());
+                if (current[4] != previous[4]) {
+                    loop.add(new RegionOutline.Point(xs[current[0]], zs[current[1]]));
+                }
+            }
+            if (loop.size() >= 3) {
+                loops.add(loop);
+            }
+        }
+        return loops;
+    }
+
+    private static boolean isInside(int[][] component, int id, int i, int j) {
+        return i >= 0 && j >= 0 && i < component.length && j < component[i].length && component[i][j] == id;
+    }
+
+    private static void addEdge(Map<Long, List<int[]>> edges, int i0, int j0, int i1, int j1, int direction) {
+        edges.computeIfAbsent(key(i0, j0), k -> new ArrayList<>(1)).add(new int[]{i0, j0, i1, j1, direction});
+    }
+
+    /**
+     * Remove and return an edge starting at the given corner. Where two
+     * outlines meet in one corner, turning left keeps each loop separate.
+     */
+    private static int[] takeEdge(Map<Long, List<int[]>> edges, long startKey, int incomingDirection) {
+        List<int[]> outgoing = edges.get(startKey);
+        if (outgoing == null) {
+            return null;
+        }
+
+        int[] chosen = outgoing.get(0);
+        if (incomingDirection >= 0 && outgoing.size() > 1) {
+            int[] preference = {(incomingDirection + 1) % 4, incomingDirection, (incomingDirection + 3) % 4};
+            search:
+            for (int direction : preference) {
+                for (int[] candidate : outgoing) {
+                    if (candidate[4] == direction) {
+                        chosen = candidate;
+                        break search;
+                    }
+                }
+            }
+        }
+
+        outgoing.remove(chosen);
+        if (outgoing.isEmpty()) {
+            edges.remove(startKey);
+        }
+        return chosen;
+    }
+
+    private static long key(int i, int j) {
+        return ((long) i << 32) | (j & 0xffffffffL);
+    }
+
+    private static long area(List<RegionOutline.Point> loop) {
+        long area = 0;
+        for (int k = 0; k < loop.size(); k++) {
+            RegionOutline.Point a = loop.get(k);
+            RegionOutline.Point b = loop.get((k + 1) % loop.size());
+            area += (long) a.x() * b.z() - (long) b.x() * a.z();
+        }
+        return area;
+    }
+
+}
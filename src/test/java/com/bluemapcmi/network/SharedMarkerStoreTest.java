@@ -0,0 +1,134 @@
+package com.bluemapcmi.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedMarkerStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private SharedMarkerStore writer;
+    private SharedMarkerStore reader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writer = new SharedMarkerStore(directory);
+        reader = new SharedMarkerStore(directory);
+    }
+
+    private static MarkerRecord marker(String id, double x) {
+        return new MarkerRecord(id, "warp", "", "world", x, 64, -20, "Warp: " + id, "<b>" + id + "</b>");
+    }
+
+    @Test
+    void pollReadsSnapshotAndAppendedChanges() throws IOException {
+        writer.writeSnapshot("lobby", List.of(marker("warp-a", 1)));
+        assertEquals(Set.of("lobby"), reader.poll("hub"));
+        assertEquals(Map.of("warp-a", marker("warp-a", 1)), reader.getMarkers("lobby"));
+
+        writer.append("lobby", List.of(marker("warp-a", 2), marker("warp-b", 3)), List.of());
+        assertEquals(Set.of("lobby"), reader.poll("hub"));
+        assertEquals(marker("warp-a", 2), reader.getMarkers("lobby").get("warp-a"));
+        assertEquals(marker("warp-b", 3), reader.getMarkers("lobby").get("warp-b"));
+
+        // Nothing new since the last poll
+        assertTrue(reader.poll("hub").isEmpty());
+    }
+
+    @Test
+    void pollSkipsOwnLog() throws IOException {
+        writer.writeSnapshot("hub", List.of(marker("warp-a", 1)));
+        assertTrue(reader.poll("hub").isEmpty());
+        assertTrue(reader.getServerIds().isEmpty());
+    }
+
+    @Test
+    void escapedFieldsRoundTrip() throws IOException {
+        MarkerRecord tricky = new MarkerRecord("warp-x", "warp", "shops", "world", 0.5, 70, -0.5,
+            "Tab\there\\", "line\nbreak");
+        MarkerRecord noDetail = new MarkerRecord("spawn", "spawn", "", "world", 0, 64, 0, "Spawn", null);
+        writer.writeSnapshot("lobby", List.of(tricky, noDetail));
+
+        reader.poll("hub");
+        assertEquals(tricky, reader.getMarkers("lobby").get("warp-x"));
+        assertEquals(noDetail, reader.getMarkers("lobby").get("spawn"));
+    }
+
+    @Test
+    void partialTrailingLineIsReadOnNextPoll() throws IOException {
+        writer.writeSnapshot("lobby", List.of(marker("warp-a", 1)));
+        reader.poll("hub");
+
+        Path log = directory.resolve("lobby.log");
+        String line = "PUT\twarp-b\twarp\t\tworld\t3.0\t64.0\t-20.0\tWarp: warp-b\t\n";
+        int split = line.length() / 2;
+        Files.writeString(log, line.substring(0, split), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertTrue(reader.poll("hub").isEmpty());
+        assertNull(reader.getMarkers("lobby").get("warp-b"));
+
+        Files.writeString(log, line.substring(split), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertEquals(Set.of("lobby"), reader.poll("hub"));
+        assertEquals(3.0, reader.getMarkers("lobby").get("warp-b").x());
+    }
+
+    @Test
+    void compactionStartsANewGeneration() throws IOException {
+        writer.writeSnapshot("lobby", List.of(marker("warp-a", 1), marker("warp-b", 2)));
+        writer.append("lobby", List.of(marker("warp-c", 3)), List.of());
+        reader.poll("hub");
+        assertEquals(3, reader.getMarkers("lobby").size());
+
+        // A shorter snapshot under a new generation replaces everything read so far
+        writer.writeSnapshot("lobby", List.of(marker("warp-c", 4)));
+        assertEquals(Set.of("lobby"), reader.poll("hub"));
+        assertEquals(Map.of("warp-c", marker("warp-c", 4)), reader.getMarkers("lobby"));
+    }
+
+    @Test
+    void delRemovesMarker() throws IOException {
+        writer.writeSnapshot("lobby", List.of(marker("warp-a", 1), marker("warp-b", 2)));
+        reader.poll("hub");
+
+        writer.append("lobby", List.of(), List.of("warp-a"));
+        assertEquals(Set.of("lobby"), reader.poll("hub"));
+        assertEquals(Set.of("warp-b"), reader.getMarkers("lobby").keySet());
+
+        // Removing an unknown marker is not a change
+        writer.append("lobby", List.of(), List.of("warp-missing"));
+        assertTrue(reader.poll("hub").isEmpty());
+    }
+
+    @Test
+    void removedLogDropsServer() throws IOException {
+        writer.writeSnapshot("lobby", List.of(marker("warp-a", 1)));
+        writer.writeSnapshot("survival", List.of(marker("warp-b", 2)));
+        assertEquals(Set.of("lobby", "survival"), reader.poll("hub"));
+
+        Files.delete(directory.resolve("lobby.log"));
+        assertEquals(Set.of("lobby"), reader.poll("hub"));
+        assertEquals(Set.of("survival"), reader.getServerIds());
+        assertTrue(reader.getMarkers("lobby").isEmpty());
+    }
+
+    @Test
+    void sizeReportsMissingLog() throws IOException {
+        assertEquals(-1, writer.size("lobby"));
+        writer.writeSnapshot("lobby", List.of());
+        assertTrue(writer.size("lobby") > 0);
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.bluemapcmi.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionOutlinerTest {
+
+    private static CuboidRegion box(String name, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return CuboidRegion.of(name, "world", minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    private static RegionOutline.Point point(int x, int z) {
+        return new RegionOutline.Point(x, z);
+    }
+
+    @Test
+    void singleBoxIsARectangle() {
+        List<RegionOutline> outlines = new RegionOutliner().outline(List.of(box("a", 0, 10, 0, 9, 20, 4)));
+
+        assertEquals(1, outlines.size());
+        RegionOutline outline = outlines.get(0);
+        assertEquals(List.of("a"), outline.regionNames());
+        assertEquals(10, outline.minY());
+        assertEquals(21, outline.maxY());
+        assertEquals(4, outline.outer().size());
+        assertTrue(outline.outer().containsAll(List.of(point(0, 0), point(10, 0), point(10, 5), point(0, 5))));
+        assertTrue(outline.holes().isEmpty());
+    }
+
+    @Test
+    void lShapeMergesIntoOneOutline() {
+        List<RegionOutline> outlines = new RegionOutliner().outline(List.of(
+            box("b", 0, 0, 0, 9, 5, 2),
+            box("a", 0, 0, 3, 2, 5, 9)
+        ));
+
+        assertEquals(1, outlines.size());
+        RegionOutline outline = outlines.get(0);
+        assertEquals(List.of("a", "b"), outline.regionNames());
+        assertEquals(6, outline.outer().size());
+        assertTrue(outline.outer().containsAll(List.of(
+            point(0, 0), point(10, 0), point(10, 3), point(3, 3), point(3, 10), point(0, 10)
+        )));
+        assertTrue(outline.holes().isEmpty());
+    }
+
+    @Test
+    void ringHasAHole() {
+        List<RegionOutline> outlines = new RegionOutliner().outline(List.of(
+            box("north", 0, 0, 0, 9, 5, 1),
+            box("south", 0, 0, 8, 9, 5, 9),
+            box("west", 0, 0, 2, 1, 5, 7),
+            box("east", 8, 0, 2, 9, 5, 7)
+        ));
+
+        assertEquals(1, outlines.size());
+        RegionOutline outline = outlines.get(0);
+        assertEquals(List.of("east", "north", "south", "west"), outline.regionNames());
+        assertEquals(4, outline.outer().size());
+        assertTrue(outline.outer().containsAll(List.of(point(0, 0), point(10, 0), point(10, 10), point(0, 10))));
+        assertEquals(1, outline.holes().size());
+        assertTrue(outline.holes().get(0).containsAll(List.of(point(2, 2), point(8, 2), point(8, 8), point(2, 8))));
+    }
+
+    @Test
+    void cornerTouchingBoxesAreSplit() {
+        List<RegionOutline> outlines = new RegionOutliner().outline(List.of(
+            box("a", 0, 0, 0, 4, 5, 4),
+            box("b", 5, 10, 5, 9, 30, 9)
+        ));
+
+        assertEquals(2, outlines.size());
+        for (RegionOutline outline : outlines) {
+            assertEquals(4, outline.outer().size());
+            assertEquals(1, outline.regionNames().size());
+            if (outline.regionNames().get(0).equals("a")) {
+                assertEquals(0, outline.minY());
+                assertEquals(6, outline.maxY());
+            } else {
+                assertEquals(10, outline.minY());
+                assertEquals(31, outline.maxY());
+            }
+        }
+    }
+
+    @Test
+    void stackedBoxesAreSeparate() {
+        List<RegionOutline> outlines = new RegionOutliner().outline(List.of(
+            box("low", 0, 0, 0, 9, 10, 9),
+            box("high", 0, 50, 0, 9, 60, 9)
+        ));
+
+        assertEquals(2, outlines.size());
+        for (RegionOutline outline : outlines) {
+            assertEquals(1, outline.regionNames().size());
+            if (outline.regionNames().get(0).equals("low")) {
+                assertEquals(0, outline.minY());
+                assertEquals(11, outline.maxY());
+            } else {
+                assertEquals(50, outline.minY());
+                assertEquals(61, outline.maxY());
+            }
+        }
+    }
+
+    @Test
+    void longChainMergesIntoOneRectangle() {
+        List<CuboidRegion> regions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            regions.add(box("segment-" + i, i * 4, 0, 0, i * 4 + 3, 5, 2));
+        }
+
+        List<RegionOutline> outlines = new RegionOutliner().outline(regions);
+
+        assertEquals(1, outlines.size());
+        RegionOutline outline = outlines.get(0);
+        assertEquals(200, outline.regionNames().size());
+        assertEquals(4, outline.outer().size());
+        assertTrue(outline.outer().containsAll(List.of(point(0, 0), point(800, 0), point(800, 3), point(0, 3))));
+    }
+
+    @Test
+    void separateWorldsAreNotMerged() {
+        List<RegionOutline> outlines = new RegionOutliner().outline(List.of(
+            CuboidRegion.of("a", "world", 0, 0, 0, 9, 5, 9),
+            CuboidRegion.of("b", "world_nether", 0, 0, 0, 9, 5, 9)
+        ));
+
+        assertEquals(2, outlines.size());
+    }
+
+    @Test
+    void unchangedInputReturnsSameInstance() {
+        RegionOutliner outliner = new RegionOutliner();
+        List<CuboidRegion> regions = List.of(box("a", 0, 0, 0, 4, 5, 4), box("b", 5, 0, 0, 9, 5, 4));
+
+        List<RegionOutline> first = outliner.outline(regions);
+        assertSame(first, outliner.outline(regions));
+        // Order of the input does not matter
+        assertSame(first, outliner.outline(List.of(regions.get(1), regions.get(0))));
+
+        List<RegionOutline> changed = outliner.outline(List.of(box("a", 0, 0, 0, 4, 5, 4)));
+        assertNotSame(first, changed);
+        assertEquals(1, changed.size());
+        assertEquals(List.of("a"), changed.get(0).regionNames());
+    }
+
+}